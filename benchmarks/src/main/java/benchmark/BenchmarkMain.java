@@ -0,0 +1,26 @@
+package benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class BenchmarkMain {
+    /**
+     * Runs the benchmarks and writes the results as JSON so runs can be compared.
+     * Usage: java -jar benchmarks/target/benchmarks-test-dependencies.jar [include regex] [result file]
+     */
+    public static void main(String[] args) throws Exception {
+        String include = args.length > 0 ? args[0] : "benchmark\\..*";
+        String resultFile = args.length > 1 ? args[1] : "jmh-result.json";
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile)
+                .build();
+        new Runner(options).run();
+
+        System.out.printf("♕ 240 Chess Benchmarks: results written to %s%n", resultFile);
+    }
+}
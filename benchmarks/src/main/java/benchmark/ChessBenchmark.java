@@ -0,0 +1,90 @@
+package benchmark;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move validation paths that every MAKE_MOVE goes through on the server.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessBenchmark {
+
+    @Param({"start", "middlegame"})
+    public String position;
+
+    private ChessGame game;
+    private ChessPosition[] pieces;
+
+    @Setup
+    public void setup() {
+        game = switch (position) {
+            case "middlegame" -> Fen.load("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10");
+            default -> new ChessGame();
+        };
+        long occupancy = game.getBoard().getOccupancy(game.getTeamTurn());
+        pieces = new ChessPosition[Long.bitCount(occupancy)];
+        for (int i = 0; i < pieces.length; i++) {
+            int square = Long.numberOfTrailingZeros(occupancy);
+            occupancy &= occupancy - 1;
+            pieces[i] = new ChessPosition(Bitboards.row(square), Bitboards.column(square));
+        }
+    }
+
+    @Benchmark
+    public int validMovesAllPieces() {
+        int count = 0;
+        for (ChessPosition piece : pieces) {
+            count += game.validMoves(piece).size();
+        }
+        return count;
+    }
+
+    /**
+     * Runs on a fresh copy, since the game would otherwise answer from its status cache
+     * after the first call; subtract {@link #gameCopy()} for the detection alone.
+     */
+    @Benchmark
+    public boolean isInCheckmate() {
+        ChessGame fresh = game.copyGame();
+        return fresh.isInCheckmate(fresh.getTeamTurn());
+    }
+
+    /**
+     * Runs on a fresh copy, like {@link #isInCheckmate()}.
+     */
+    @Benchmark
+    public boolean isInCheck() {
+        ChessGame fresh = game.copyGame();
+        return fresh.isInCheck(fresh.getTeamTurn());
+    }
+
+    /**
+     * Asks the same game every time, so everything after the first call is a status cache hit.
+     */
+    @Benchmark
+    public boolean isInCheckmateCached() {
+        return game.isInCheckmate(game.getTeamTurn());
+    }
+
+    @Benchmark
+    public ChessBoard boardCopy() {
+        return game.getBoard().copy();
+    }
+
+    @Benchmark
+    public ChessGame gameCopy() {
+        return game.copyGame();
+    }
+
+    @Benchmark
+    public long perftDepth2() {
+        return Perft.perft(game, 2);
+    }
+}
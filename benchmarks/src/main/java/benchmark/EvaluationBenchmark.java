@@ -0,0 +1,86 @@
+package benchmark;
+
+import chess.*;
+import chess.engine.Evaluator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one leaf evaluation, with the board's incrementally maintained piece-square
+ * score against rescanning all 64 squares.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+
+    @Param({"start", "middlegame"})
+    public String position;
+
+    private ChessGame game;
+    private Evaluator evaluator;
+    private int[] moves;
+    private int moveCount;
+
+    @Setup
+    public void setup() {
+        game = switch (position) {
+            case "middlegame" -> Fen.load("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10");
+            default -> new ChessGame();
+        };
+        evaluator = new Evaluator();
+        moves = new int[PackedMove.MAX_MOVES];
+        moveCount = game.validMoves(game.getTeamTurn(), moves);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return evaluator.evaluate(game.getBoard(), game.getTeamTurn());
+    }
+
+    @Benchmark
+    public int pieceSquareScoreIncremental() {
+        return game.getBoard().getPieceSquareScore();
+    }
+
+    @Benchmark
+    public int pieceSquareScoreFromScratch() {
+        ChessBoard board = game.getBoard();
+        int midgame = 0;
+        int endgame = 0;
+        int phase = 0;
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.getPiece(square);
+            if (piece != null) {
+                midgame += PieceSquareTables.midgame(piece.getTeamColor(), piece.getPieceType(), square);
+                endgame += PieceSquareTables.endgame(piece.getTeamColor(), piece.getPieceType(), square);
+                phase += switch (piece.getPieceType()) {
+                    case QUEEN -> 4;
+                    case ROOK -> 2;
+                    case BISHOP, KNIGHT -> 1;
+                    default -> 0;
+                };
+            }
+        }
+        return PieceSquareTables.taper(midgame, endgame, phase);
+    }
+
+    /**
+     * What a search pays at the leaves below one node: make, evaluate and take back
+     * every legal move (20 at the start, 46 in the middlegame)
+     */
+    @Benchmark
+    public int makeEvaluateUnmake() {
+        int sum = 0;
+        for (int i = 0; i < moveCount; i++) {
+            game.forceMove(moves[i]);
+            sum += evaluator.evaluate(game.getBoard(), game.getTeamTurn());
+            game.unmakeMove();
+        }
+        return sum;
+    }
+}
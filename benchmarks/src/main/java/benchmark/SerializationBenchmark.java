@@ -0,0 +1,56 @@
+package benchmark;
+
+import chess.*;
+import com.google.gson.Gson;
+import datamodel.GameData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson encoding of GameData, done for every LOAD_GAME message, against the binary
+ * GameCodec used for stored games.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private final Gson gson = new Gson();
+    private GameData gameData;
+    private String json;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        gameData = new GameData(1234, "white", "black", "benchmark", game);
+        json = gson.toJson(gameData);
+        encoded = GameCodec.encode(game);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return gson.toJson(gameData);
+    }
+
+    @Benchmark
+    public GameData fromJson() {
+        return gson.fromJson(json, GameData.class);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return GameCodec.encode(gameData.game());
+    }
+
+    @Benchmark
+    public ChessGame decode() {
+        return GameCodec.decode(encoded);
+    }
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+import chess.ChessGame;
+import dataaccess.MemoryDataAccess;
+import datamodel.*;
+import org.openjdk.jmh.annotations.*;
+import service.GameService;
+import service.UserService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service calls behind the HTTP routes, run against MemoryDataAccess so the numbers
+ * measure the service layer rather than MySQL.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Param({"10", "100"})
+    public int games;
+
+    private UserService userService;
+    private GameService gameService;
+    private UserData login;
+    private String authToken;
+
+    @Setup
+    public void setup() throws Exception {
+        var dataAccess = new MemoryDataAccess();
+        userService = new UserService(dataAccess);
+        gameService = new GameService(dataAccess);
+
+        authToken = userService.register(new UserData("player", "password", "p@p.com")).authToken();
+        login = new UserData("player", "password", null);
+        for (int i = 0; i < games; i++) {
+            dataAccess.addGame(new GameData(i, "player", null, "game" + i, new ChessGame()));
+        }
+    }
+
+    @Benchmark
+    public GameList listGames() throws Exception {
+        return gameService.listGames(authToken);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public AuthData login() throws Exception {
+        return userService.login(login);
+    }
+}
@@ -0,0 +1,182 @@
+package dataaccess;
+
+import datamodel.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers which user each auth token belongs to, in front of another DataAccess.
+ * <p>
+ * Entries live for ttlMillis after they are loaded and are swept out about as often, and
+ * at most maxEntries are kept; when the cache is full the oldest entries are dropped. Logging out
+ * ({@link #delAuth}) and {@link #clear} invalidate straight away. Unknown tokens are not
+ * cached, so a bad token always reaches the store and cannot fill the cache.
+ */
+public class AuthCacheDataAccess implements DataAccess {
+
+    public static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000;
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    // loaded orders entries by age, as expiry times from the same millisecond tie
+    private record Entry(String username, long expires, long loaded) {
+    }
+
+    private final DataAccess delegate;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<String, Entry> tokens = new ConcurrentHashMap<>();
+    private final AtomicLong loads = new AtomicLong();
+    // bumped by every delAuth and clear, after the store has changed
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile long nextSweep;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public AuthCacheDataAccess(DataAccess delegate, long ttlMillis, int maxEntries) {
+        this.delegate = delegate;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    public AuthCacheDataAccess(DataAccess delegate) {
+        this(delegate, DEFAULT_TTL_MILLIS, DEFAULT_MAX_ENTRIES);
+    }
+
+    @Override
+    public String getAuthUser(String auth) throws DataAccessException {
+        if (auth == null) {
+            return delegate.getAuthUser(null);
+        }
+        Entry entry = tokens.get(auth);
+        long now = System.currentTimeMillis();
+        if (entry != null && entry.expires() > now) {
+            hits.increment();
+            return entry.username();
+        }
+        misses.increment();
+        // a logout or clear while the store is being read must not be undone by caching it
+        long generation = invalidations.get();
+        String username = delegate.getAuthUser(auth);
+        if (entry != null) {
+            tokens.remove(auth, entry);
+        }
+        if (username == null) {
+            return null;
+        }
+        Entry loaded = new Entry(username, now + ttlMillis, loads.incrementAndGet());
+        if (tokens.putIfAbsent(auth, loaded) == null && invalidations.get() != generation) {
+            tokens.remove(auth, loaded);
+        }
+        evict();
+        return username;
+    }
+
+    @Override
+    public void addAuth(AuthData auth) throws DataAccessException {
+        delegate.addAuth(auth);
+        tokens.put(auth.authToken(), new Entry(auth.username(), System.currentTimeMillis() + ttlMillis,
+                loads.incrementAndGet()));
+        evict();
+    }
+
+    @Override
+    public void delAuth(String auth) throws DataAccessException {
+        try {
+            delegate.delAuth(auth);
+        } finally {
+            invalidations.incrementAndGet();
+            if (auth != null) {
+                tokens.remove(auth);
+            }
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        try {
+            delegate.clear();
+        } finally {
+            invalidations.incrementAndGet();
+            tokens.clear();
+        }
+    }
+
+    @Override
+    public void createUser(UserData user) throws DataAccessException {
+        delegate.createUser(user);
+    }
+
+    @Override
+    public UserData getUser(String username) throws DataAccessException {
+        return delegate.getUser(username);
+    }
+
+    @Override
+    public GameList listGames() throws DataAccessException {
+        return delegate.listGames();
+    }
+
+    @Override
+    public void addGame(GameData game) throws DataAccessException {
+        delegate.addGame(game);
+    }
+
+    @Override
+    public void joinGame(Integer gameID, String color, String auth) throws DataAccessException {
+        delegate.joinGame(gameID, color, auth);
+    }
+
+    @Override
+    public GameData getGameFromID(Integer gameID) throws DataAccessException {
+        return delegate.getGameFromID(gameID);
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public double hitRate() {
+        long lookups = hits() + misses();
+        return lookups == 0 ? 0 : (double) hits() / lookups;
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    /**
+     * Drops expired entries once per TTL, or sooner when the cache is full; if that is
+     * not enough, drops the oldest eighth, so a full cache is only swept once in a while.
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        if (tokens.size() <= maxEntries && now < nextSweep) {
+            return;
+        }
+        synchronized (this) {
+            if (tokens.size() <= maxEntries && now < nextSweep) {
+                return;
+            }
+            nextSweep = now + ttlMillis;
+            tokens.values().removeIf(entry -> entry.expires() <= now);
+            int excess = tokens.size() - maxEntries + maxEntries / 8;
+            if (excess <= 0) {
+                return;
+            }
+            List<Map.Entry<String, Entry>> oldest = new ArrayList<>(tokens.entrySet());
+            oldest.sort((a, b) -> Long.compare(a.getValue().loaded(), b.getValue().loaded()));
+            for (int i = 0; i < Math.min(excess, oldest.size()); i++) {
+                tokens.remove(oldest.get(i).getKey(), oldest.get(i).getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded pool of JDBC connections.
+ * <p>
+ * {@link #borrow()} hands out an idle connection, or opens a new one while fewer than
+ * maxSize exist, or waits up to maxWaitMillis for one to be returned. Closing a borrowed
+ * connection returns it to the pool instead of closing the socket, so callers keep using
+ * try-with-resources as before.
+ * <p>
+ * A connection that has sat idle for a while is checked with {@link Connection#isValid}
+ * before it is handed out, and replaced if the server has dropped it. A background task
+ * closes connections idle for longer than idleMillis, down to minSize, and opens new ones
+ * up to minSize.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Opens a new physical connection, ready to use.
+     */
+    @FunctionalInterface
+    public interface Connector {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * @param waitMillis total time borrowers spent waiting, including opening connections
+     */
+    public record Stats(int total, int idle, long borrows, long created, long evicted, long timeouts,
+                        double waitMillis, double maxWaitMillis) {
+
+        public double averageWaitMillis() {
+            return borrows == 0 ? 0 : waitMillis / borrows;
+        }
+    }
+
+    // connections used more recently than this are handed out without a round trip
+    private static final long VALIDATE_AFTER_MILLIS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final Connector connector;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleMillis;
+    private final long maxWaitMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition returned = lock.newCondition();
+    // most recently returned first, so the tail is what eviction looks at
+    private final Deque<Idle> idle = new ArrayDeque<>();
+    private int total;
+    private boolean closed;
+    private final ScheduledExecutorService maintenance;
+
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private record Idle(Connection connection, long since) {
+    }
+
+    public ConnectionPool(Connector connector, int minSize, int maxSize, long idleMillis, long maxWaitMillis) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException(String.format("bad pool size %d..%d", minSize, maxSize));
+        }
+        this.connector = connector;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleMillis = idleMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleMillis / 2);
+        maintenance.scheduleWithFixedDelay(this::maintain, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return a connection whose close() gives it back to the pool
+     * @throws SQLException if no connection could be opened, or none was free in time
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        while (true) {
+            Idle candidate = take(deadline);
+            Connection connection;
+            if (candidate == null) {
+                connection = open();
+            } else if (isUsable(candidate)) {
+                connection = candidate.connection();
+            } else {
+                discard(candidate.connection());
+                continue;
+            }
+            recordWait(System.nanoTime() - start);
+            return wrap(connection);
+        }
+    }
+
+    public Stats stats() {
+        int totalNow;
+        int idleNow;
+        lock.lock();
+        try {
+            totalNow = total;
+            idleNow = idle.size();
+        } finally {
+            lock.unlock();
+        }
+        return new Stats(totalNow, idleNow, borrows.get(), created.get(), evicted.get(), timeouts.get(),
+                waitNanos.get() / 1e6, maxWaitNanos.get() / 1e6);
+    }
+
+    /**
+     * Closes the idle connections now and the borrowed ones as they are returned.
+     */
+    @Override
+    public void close() {
+        maintenance.shutdownNow();
+        List<Idle> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            total -= idle.size();
+            idle.clear();
+            returned.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Idle entry : toClose) {
+            closeQuietly(entry.connection());
+        }
+    }
+
+    /**
+     * @return an idle connection, or null when the caller has reserved a slot to open one
+     */
+    private Idle take(long deadline) throws SQLException {
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new SQLException("connection pool is closed");
+                }
+                if (!idle.isEmpty()) {
+                    return idle.pollFirst();
+                }
+                if (total < maxSize) {
+                    total++;
+                    return null;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    timeouts.incrementAndGet();
+                    throw new SQLException(String.format("no connection free within %d ms", maxWaitMillis));
+                }
+                returned.awaitNanos(remaining);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted waiting for a connection", ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Opens a connection in a slot already counted in total.
+     */
+    private Connection open() throws SQLException {
+        try {
+            Connection connection = connector.open();
+            created.incrementAndGet();
+            return connection;
+        } catch (SQLException | RuntimeException ex) {
+            release();
+            throw ex;
+        }
+    }
+
+    private boolean isUsable(Idle candidate) {
+        if (System.currentTimeMillis() - candidate.since() < VALIDATE_AFTER_MILLIS) {
+            return true;
+        }
+        try {
+            return candidate.connection().isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Takes back a borrowed connection, resetting anything the borrower changed.
+     */
+    private void giveBack(Connection connection) {
+        try {
+            if (connection.isClosed()) {
+                release();
+                return;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException ex) {
+            discard(connection);
+            return;
+        }
+        lock.lock();
+        try {
+            if (!closed) {
+                idle.addFirst(new Idle(connection, System.currentTimeMillis()));
+                returned.signal();
+                return;
+            }
+            total--;
+        } finally {
+            lock.unlock();
+        }
+        closeQuietly(connection);
+    }
+
+    private void discard(Connection connection) {
+        closeQuietly(connection);
+        release();
+    }
+
+    /**
+     * Frees a slot counted in total.
+     */
+    private void release() {
+        lock.lock();
+        try {
+            total--;
+            returned.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void maintain() {
+        List<Connection> expired = new ArrayList<>();
+        int missing;
+        lock.lock();
+        try {
+            long cutoff = System.currentTimeMillis() - idleMillis;
+            while (total > minSize && !idle.isEmpty() && idle.peekLast().since() < cutoff) {
+                expired.add(idle.pollLast().connection());
+                total--;
+            }
+            missing = closed ? 0 : Math.max(0, minSize - total);
+            total += missing;
+        } finally {
+            lock.unlock();
+        }
+        for (Connection connection : expired) {
+            closeQuietly(connection);
+            evicted.incrementAndGet();
+        }
+        for (int i = 0; i < missing; i++) {
+            try {
+                giveBack(open());
+            } catch (SQLException | RuntimeException ex) {
+                // the database may be down; borrowers will see the error
+                for (int j = i + 1; j < missing; j++) {
+                    release();
+                }
+                return;
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        borrows.incrementAndGet();
+        waitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new Borrowed(connection));
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    /**
+     * Forwards calls to the pooled connection until close(), which returns it instead.
+     */
+    private class Borrowed implements InvocationHandler {
+
+        private Connection connection;
+
+        Borrowed(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (connection != null) {
+                        Connection returning = connection;
+                        connection = null;
+                        giveBack(returning);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return connection == null || connection.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "pooled " + connection;
+                }
+                default -> {
+                    if (connection == null) {
+                        throw new SQLException("connection has been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                }
+            }
+        }
+    }
+}
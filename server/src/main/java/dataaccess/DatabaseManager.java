@@ -8,6 +8,7 @@ public class DatabaseManager {
     private static String dbUsername;
     private static String dbPassword;
     private static String connectionUrl;
+    private static volatile ConnectionPool pool;
 
     /*
      * Load the database information for the db.properties file.
@@ -30,10 +31,10 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
-     * The easiest way to do that is with a try-with-resource block.
+     * Borrows a connection to the database from the pool. Connections to the database
+     * should be short-lived, and you must close the connection when you are done with it,
+     * which returns it to the pool. The easiest way to do that is with a try-with-resource
+     * block.
      * <br/>
      * <code>
      * try (var conn = DatabaseManager.getConnection()) {
@@ -43,15 +44,34 @@ public class DatabaseManager {
      */
     static Connection getConnection() throws DataAccessException {
         try {
-            //do not wrap the following line with a try-with-resources
-            var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
-            conn.setCatalog(databaseName);
-            return conn;
+            return pool.borrow();
         } catch (SQLException ex) {
             throw new DataAccessException("failed to get connection", ex);
         }
     }
 
+    /**
+     * @return the pool's size and how long borrowers have waited for connections
+     */
+    public static ConnectionPool.Stats poolStats() {
+        return pool.stats();
+    }
+
+    /**
+     * Opens a new connection with the catalog set based upon the properties specified
+     * in db.properties.
+     */
+    private static Connection openConnection() throws SQLException {
+        var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
+        try {
+            conn.setCatalog(databaseName);
+        } catch (SQLException ex) {
+            conn.close();
+            throw ex;
+        }
+        return conn;
+    }
+
     private static void loadPropertiesFromResources() {
         try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
             if (propStream == null) {
@@ -73,5 +93,16 @@ public class DatabaseManager {
         var host = props.getProperty("db.host");
         var port = Integer.parseInt(props.getProperty("db.port"));
         connectionUrl = String.format("jdbc:mysql://%s:%d", host, port);
+
+        var minSize = Integer.parseInt(props.getProperty("db.pool.min", "2"));
+        var maxSize = Integer.parseInt(props.getProperty("db.pool.max", "10"));
+        var idleMillis = Long.parseLong(props.getProperty("db.pool.idleMillis", "60000"));
+        var waitMillis = Long.parseLong(props.getProperty("db.pool.waitMillis", "5000"));
+        var previous = pool;
+        pool = new ConnectionPool(DatabaseManager::openConnection, minSize, maxSize, idleMillis, waitMillis);
+        // borrowed connections of the old pool are closed as they come back
+        if (previous != null) {
+            previous.close();
+        }
     }
 }
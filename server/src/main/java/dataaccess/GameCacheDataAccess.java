@@ -0,0 +1,263 @@
+package dataaccess;
+
+import datamodel.*;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps games that are being played in memory in front of another DataAccess.
+ * <p>
+ * A game is cached from {@link #open} until {@link #release}, which the websocket layer
+ * calls when the first session joins a game and when the last one leaves. While cached,
+ * reads of the game are served from memory and writes are only recorded; a background
+ * task writes the latest version of each changed game to the underlying store at most
+ * flushMillis later, so several moves in quick succession cost one write. Releasing a
+ * game writes any pending change before dropping it.
+ * <p>
+ * Everything else, and games nobody is connected to, goes straight through. GameData
+ * passed to {@link #addGame} must not be modified afterwards, as it may still be waiting
+ * to be written.
+ */
+public class GameCacheDataAccess implements DataAccess, AutoCloseable {
+
+    private final DataAccess delegate;
+    private final Map<Integer, Cached> games = new ConcurrentHashMap<>();
+    // the latest unwritten version of each changed game
+    private final Map<Integer, GameData> pending = new ConcurrentHashMap<>();
+    // held while writing, so an older version can never land after a newer one;
+    // taken before a Cached monitor, never after
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * A cached game. Its monitor makes updating it and recording it as pending one step,
+     * and keeps writes out while joinGame or release work on the stored row. Writes that
+     * find it released go straight to the store.
+     */
+    private static class Cached {
+        // read without the monitor, so reads never wait on a joinGame round trip
+        private volatile GameData game;
+        private boolean released;
+
+        Cached(GameData game) {
+            this.game = game;
+        }
+    }
+
+    public GameCacheDataAccess(DataAccess delegate, long flushMillis) {
+        this.delegate = delegate;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts serving the game from memory. Does nothing if the game does not exist. A
+     * version still waiting to be written, say because releasing the game failed to write
+     * it, is newer than the stored row and is used instead.
+     */
+    public void open(Integer gameID) throws DataAccessException {
+        if (games.containsKey(gameID)) {
+            return;
+        }
+        synchronized (flushLock) {
+            if (games.containsKey(gameID)) {
+                return;
+            }
+            GameData game = pending.get(gameID);
+            if (game == null) {
+                game = delegate.getGameFromID(gameID);
+            }
+            if (game != null) {
+                games.put(gameID, new Cached(game));
+            }
+        }
+    }
+
+    /**
+     * Writes the game if it has changed and stops caching it.
+     */
+    public void release(Integer gameID) throws DataAccessException {
+        synchronized (flushLock) {
+            Cached cached = games.get(gameID);
+            if (cached == null) {
+                flush(gameID);
+                return;
+            }
+            synchronized (cached) {
+                cached.released = true;
+                games.remove(gameID);
+                flush(gameID);
+            }
+        }
+    }
+
+    public boolean isCached(Integer gameID) {
+        return games.containsKey(gameID);
+    }
+
+    /**
+     * Writes every pending change now.
+     */
+    public void flush() throws DataAccessException {
+        synchronized (flushLock) {
+            for (Integer gameID : pending.keySet()) {
+                flush(gameID);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws DataAccessException {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        synchronized (flushLock) {
+            pending.clear();
+            for (Cached cached : games.values()) {
+                synchronized (cached) {
+                    cached.released = true;
+                }
+            }
+            games.clear();
+            delegate.clear();
+        }
+    }
+
+    @Override
+    public void createUser(UserData user) throws DataAccessException {
+        delegate.createUser(user);
+    }
+
+    @Override
+    public UserData getUser(String username) throws DataAccessException {
+        return delegate.getUser(username);
+    }
+
+    @Override
+    public void addAuth(AuthData auth) throws DataAccessException {
+        delegate.addAuth(auth);
+    }
+
+    @Override
+    public String getAuthUser(String auth) throws DataAccessException {
+        return delegate.getAuthUser(auth);
+    }
+
+    @Override
+    public void delAuth(String auth) throws DataAccessException {
+        delegate.delAuth(auth);
+    }
+
+    @Override
+    public GameList listGames() throws DataAccessException {
+        var list = new ArrayList<GameData>();
+        for (GameData game : delegate.listGames().games()) {
+            Cached cached = games.get(game.gameID());
+            list.add(cached == null ? game : current(cached));
+        }
+        return new GameList(list);
+    }
+
+    @Override
+    public void addGame(GameData game) throws DataAccessException {
+        Cached cached = games.get(game.gameID());
+        if (cached != null) {
+            synchronized (cached) {
+                if (!cached.released) {
+                    cached.game = game;
+                    pending.put(game.gameID(), game);
+                    return;
+                }
+            }
+        }
+        // any version still waiting to be written is older, and must not land after this one
+        synchronized (flushLock) {
+            delegate.addGame(game);
+            pending.remove(game.gameID());
+        }
+    }
+
+    @Override
+    public void joinGame(Integer gameID, String color, String auth) throws DataAccessException {
+        Cached cached = games.get(gameID);
+        if (cached == null) {
+            delegate.joinGame(gameID, color, auth);
+            return;
+        }
+        // rare enough to let the store apply its own rules to an up-to-date row; moves to
+        // this game wait until the row is read back
+        synchronized (flushLock) {
+            synchronized (cached) {
+                if (cached.released) {
+                    delegate.joinGame(gameID, color, auth);
+                    return;
+                }
+                flush(gameID);
+                try {
+                    delegate.joinGame(gameID, color, auth);
+                } finally {
+                    GameData game = delegate.getGameFromID(gameID);
+                    if (game != null) {
+                        cached.game = game;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public GameData getGameFromID(Integer gameID) throws DataAccessException {
+        Cached cached = gameID == null ? null : games.get(gameID);
+        return cached != null ? current(cached) : delegate.getGameFromID(gameID);
+    }
+
+    /**
+     * ChessGame keeps scratch state that even reads write to, so each caller gets its own
+     * copy rather than sharing the cached game across threads.
+     */
+    private static GameData current(Cached cached) {
+        GameData game = cached.game;
+        if (game.game() == null) {
+            return game;
+        }
+        return new GameData(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(),
+                game.game().copyGame());
+    }
+
+    /**
+     * Must hold flushLock.
+     */
+    private void flush(Integer gameID) throws DataAccessException {
+        GameData game = pending.remove(gameID);
+        if (game == null) {
+            return;
+        }
+        try {
+            delegate.addGame(game);
+        } catch (DataAccessException | RuntimeException ex) {
+            // retry later, unless a newer version has arrived meanwhile
+            pending.putIfAbsent(gameID, game);
+            throw ex;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception ex) {
+            System.out.printf("Failed to write cached games, %s%n", ex.getMessage());
+        }
+    }
+}
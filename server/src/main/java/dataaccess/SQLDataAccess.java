@@ -1,5 +1,7 @@
 package dataaccess;
 
+import chess.ChessGame;
+import chess.GameCodec;
 import com.google.gson.Gson;
 
 import java.sql.*;
@@ -96,7 +98,7 @@ public class SQLDataAccess implements DataAccess {
     @Override
     public GameList listGames() throws DataAccessException {
         var gamesList = new ArrayList<GameData>();
-        var statement = "SELECT json FROM games";
+        var statement = "SELECT id, name, white, black, state, json FROM games";
         try (Connection conn = DatabaseManager.getConnection()) {
             try (PreparedStatement ps = conn.prepareStatement(statement)) {
                 try (ResultSet rs = ps.executeQuery()) {
@@ -114,9 +116,12 @@ public class SQLDataAccess implements DataAccess {
 
     @Override
     public void addGame(GameData game) throws DataAccessException {
-        var statement = "INSERT INTO games (id, name, json) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE json = VALUES(json)";
-        String serialized = new Gson().toJson(game);
-        executeUpdate(statement, game.gameID(), game.gameName(), serialized);
+        var statement = """
+                INSERT INTO games (id, name, white, black, state, json) VALUES (?, ?, ?, ?, ?, NULL)
+                ON DUPLICATE KEY UPDATE white = VALUES(white), black = VALUES(black), state = VALUES(state), json = NULL
+                """;
+        byte[] state = game.game() == null ? null : GameCodec.encode(game.game());
+        executeUpdate(statement, game.gameID(), game.gameName(), game.whiteUsername(), game.blackUsername(), state);
     }
 
     @Override
@@ -124,32 +129,23 @@ public class SQLDataAccess implements DataAccess {
         var game = getGameFromID(gameID);
         String user = getAuthUser(auth);
 
-        String statement = "UPDATE games SET json = ? WHERE id = ?";
         if (color.equals("leave") && (user.equals(game.whiteUsername()) || user.equals(game.blackUsername()))) {
             if (user.equals(game.whiteUsername())) {
                 game = getGameFromID(gameID);
                 GameData updated = new GameData(gameID, null, game.blackUsername(), game.gameName(), game.game());
-                var serializer = new Gson();
-                String serialized = serializer.toJson(updated);
-                executeUpdate(statement, serialized, gameID);
+                addGame(updated);
             }
             if (user.equals(game.blackUsername())) {
                 game = getGameFromID(gameID);
                 GameData updated = new GameData(gameID, game.whiteUsername(), null, game.gameName(), game.game());
-                var serializer = new Gson();
-                String serialized = serializer.toJson(updated);
-                executeUpdate(statement, serialized, gameID);
+                addGame(updated);
             }
         } else if (color.equals("WHITE") && game.whiteUsername() == null){
             GameData updated = new GameData(gameID, user, game.blackUsername(), game.gameName(), game.game());
-            var serializer = new Gson();
-            String serialized = serializer.toJson(updated);
-            executeUpdate(statement, serialized, gameID);
+            addGame(updated);
         } else if (color.equals("BLACK") && game.blackUsername() == null) {
             GameData updated = new GameData(gameID, game.whiteUsername(), user, game.gameName(), game.game());
-            var serializer = new Gson();
-            String serialized = serializer.toJson(updated);
-            executeUpdate(statement, serialized, gameID);
+            addGame(updated);
         } else {
             throw new DataAccessException("already taken");
         }
@@ -157,15 +153,13 @@ public class SQLDataAccess implements DataAccess {
 
     @Override
     public GameData getGameFromID(Integer gameID) throws DataAccessException {
-        var statement = "SELECT json FROM games WHERE id = ?";
+        var statement = "SELECT id, name, white, black, state, json FROM games WHERE id = ?";
         try (var conn = DatabaseManager.getConnection()) {
             try (var ps = conn.prepareStatement(statement)) {
                 ps.setInt(1, gameID);
                 try (var rs = ps.executeQuery()) {
                     if (rs.next()) {
-                        String json = rs.getString("json");
-                        var serializer = new Gson();
-                        return serializer.fromJson(json, GameData.class);
+                        return readGame(rs);
                     }
                 }
             }
@@ -199,6 +193,9 @@ public class SQLDataAccess implements DataAccess {
             CREATE TABLE IF NOT EXISTS games (
               `id` int NOT NULL,
               `name` varchar(256) NOT NULL UNIQUE,
+              `white` varchar(256) DEFAULT NULL,
+              `black` varchar(256) DEFAULT NULL,
+              `state` VARBINARY(64) DEFAULT NULL,
               `json` TEXT DEFAULT NULL,
               PRIMARY KEY (`id`),
               INDEX(name)
@@ -214,9 +211,55 @@ public class SQLDataAccess implements DataAccess {
                     preparedStatement.executeUpdate();
                 }
             }
+            addGameColumns(conn);
         } catch (SQLException ex) {
             throw new DataAccessException(ex.getMessage());
         }
+        migrateJsonGames();
+    }
+
+    /**
+     * Adds the columns of the binary game format to a games table created before it.
+     */
+    private void addGameColumns(Connection conn) throws SQLException {
+        var statement = """
+                SELECT COUNT(*) FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'games' AND COLUMN_NAME = 'state'
+                """;
+        try (var ps = conn.prepareStatement(statement); var rs = ps.executeQuery()) {
+            if (rs.next() && rs.getInt(1) > 0) {
+                return;
+            }
+        }
+        try (var ps = conn.prepareStatement("""
+                ALTER TABLE games ADD COLUMN `white` varchar(256) DEFAULT NULL,
+                ADD COLUMN `black` varchar(256) DEFAULT NULL, ADD COLUMN `state` VARBINARY(64) DEFAULT NULL
+                """)) {
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Rewrites games stored as JSON in the binary format. Until a row is migrated,
+     * readGame still understands its JSON.
+     */
+    private void migrateJsonGames() throws DataAccessException {
+        var legacy = new ArrayList<GameData>();
+        var statement = "SELECT json FROM games WHERE state IS NULL AND json IS NOT NULL";
+        try (Connection conn = DatabaseManager.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        legacy.add(new Gson().fromJson(rs.getString("json"), GameData.class));
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            throw new DataAccessException(String.format("Unable to read data: %s", ex.getMessage()));
+        }
+        for (GameData game : legacy) {
+            addGame(game);
+        }
     }
 
     private void executeUpdate(String statement, Object... params) throws DataAccessException {
@@ -230,6 +273,9 @@ public class SQLDataAccess implements DataAccess {
                     else if (param instanceof Integer p) {
                         ps.setInt(i + 1, p);
                     }
+                    else if (param instanceof byte[] p) {
+                        ps.setBytes(i + 1, p);
+                    }
                     else if (param instanceof GameData p) {
                         ps.setString(i + 1, p.toString());
                     }
@@ -262,8 +308,20 @@ public class SQLDataAccess implements DataAccess {
     }
 
     private GameData readGame(ResultSet rs) throws SQLException {
-        var json = rs.getString("json");
-        GameData game = new Gson().fromJson(json, GameData.class);
-        return game;
+        var state = rs.getBytes("state");
+        if (state == null) {
+            // not migrated yet
+            var json = rs.getString("json");
+            if (json != null) {
+                GameData legacy = new Gson().fromJson(json, GameData.class);
+                // build the board's bitboards before the game can be shared between threads
+                if (legacy.game() != null && legacy.game().getBoard() != null) {
+                    legacy.game().getBoard().getZobristKey();
+                }
+                return legacy;
+            }
+        }
+        ChessGame game = state == null ? null : GameCodec.decode(state);
+        return new GameData(rs.getInt("id"), rs.getString("white"), rs.getString("black"), rs.getString("name"), game);
     }
 }
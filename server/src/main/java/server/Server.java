@@ -1,38 +1,85 @@
 package server;
 
+import chess.engine.OpeningBook;
+import chess.engine.Tablebases;
 import com.google.gson.Gson;
 import dataaccess.*;
 import datamodel.*;
 import io.javalin.*;
 import io.javalin.http.Context;
+import server.websocket.ConnectionManager;
 import server.websocket.WebSocketHandler;
 import service.*;
 import websocket.messages.*;
 import websocket.commands.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalTime;
 import java.util.HashMap;
 
 public class Server {
 
+    // optional; built with chess.engine.OpeningBookBuilder
+    private static final String BOOK_FILE = "opening.book";
+    // optional; generated with chess.engine.Tablebases
+    private static final String TABLEBASE_DIR = "tablebases";
+    // longest a move to a game in play may wait before it is written to the database
+    private static final long GAME_FLUSH_MILLIS = 250;
+    private static final LocalTime NIGHTLY_ANALYSIS_TIME = LocalTime.of(3, 0);
+
     private final Javalin javalin;
     private final WebSocketHandler webSocketHandler;
     private UserService userService;
     private GameService gameService;
+    private AnalysisService analysisService;
+    private NightlyAnalysisService nightlyAnalysisService;
+    private final GameCacheDataAccess gameCache;
 
     public Server() {
-        DataAccess dataAccess;
+        DataAccess sqlDataAccess;
         try {
-            dataAccess = new SQLDataAccess();
+            sqlDataAccess = new SQLDataAccess();
             System.out.println("SQL connection successful");
         } catch (Exception ex) {
 //            dataAccess = new MemoryDataAccess();
 //            System.out.println("SQL connection failed, using memory");
             throw new RuntimeException(String.format("SQL connection failed, %s",ex));
         }
+        gameCache = new GameCacheDataAccess(sqlDataAccess, GAME_FLUSH_MILLIS);
+        DataAccess dataAccess = new AuthCacheDataAccess(gameCache);
         userService = new UserService(dataAccess);
         gameService = new GameService(dataAccess);
+        OpeningBook book = null;
+        try {
+            book = OpeningBook.openIfExists(Path.of(BOOK_FILE));
+        } catch (IOException ex) {
+            System.out.printf("Opening book not loaded, %s%n", ex.getMessage());
+        }
+        Tablebases tablebases = null;
+        try {
+            tablebases = Tablebases.open(Path.of(TABLEBASE_DIR));
+        } catch (IOException ex) {
+            System.out.printf("Tablebases not loaded, %s%n", ex.getMessage());
+        }
+        analysisService = new AnalysisService(dataAccess, book, tablebases);
+        nightlyAnalysisService = new NightlyAnalysisService(dataAccess,
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        nightlyAnalysisService.start(NIGHTLY_ANALYSIS_TIME);
+        analysisService.setNightlyResults(nightlyAnalysisService);
+
+        var connections = new ConnectionManager(new ConnectionManager.GameListener() {
+            @Override
+            public void gameOpened(Integer gameID) throws DataAccessException {
+                gameCache.open(gameID);
+            }
 
-        webSocketHandler = new WebSocketHandler();
+            @Override
+            public void gameClosed(Integer gameID) throws DataAccessException {
+                gameCache.release(gameID);
+            }
+        });
+        webSocketHandler = new WebSocketHandler(dataAccess, connections);
 
         javalin = Javalin.create(config -> config.staticFiles.add("web"));
 
@@ -44,6 +91,7 @@ public class Server {
         javalin.get("/game",ctx -> listGames(ctx));
         javalin.post("/game",ctx-> createGame(ctx));
         javalin.put("/game",ctx -> joinGame(ctx));
+        javalin.get("/game/{id}/analysis", ctx -> analyzeGame(ctx));
         javalin.ws("/ws", ws -> {
             ws.onConnect(webSocketHandler);
             ws.onMessage(webSocketHandler);
@@ -247,6 +295,67 @@ public class Server {
         }
     }
 
+    private void analyzeGame(Context ctx) {
+        try {
+            var auth = ctx.header("authorization");
+            Integer gameID = parseInteger(ctx.pathParam("id"));
+            Integer depth = parseInteger(ctx.queryParam("depth"));
+            Integer millis = parseInteger(ctx.queryParam("ms"));
+
+            var analysis = analysisService.analyze(auth, gameID, depth, millis == null ? null : millis.longValue());
+
+            // the search runs on the analysis pool; this request thread is released right away
+            var response = analysis.handle((result, ex) -> {
+                if (ex != null) {
+                    ctx.status(500);
+                    ctx.result(String.format("{ \"message\": \"Error: %s\" }", ex.getMessage()));
+                } else {
+                    ctx.status(200);
+                    ctx.result(new Gson().toJson(result));
+                }
+                return null;
+            });
+            // Javalin cancels the response future when the client goes away
+            response.whenComplete((result, ex) -> {
+                if (response.isCancelled()) {
+                    analysis.cancel(true);
+                }
+            });
+            ctx.future(() -> response);
+
+        } catch (DataAccessException ex) {
+            String msg = String.format("{ \"message\": \"Error: %s\" }", ex.getMessage());
+            ctx.status(500);
+            ctx.result(msg);
+        } catch (Exception ex) {
+            String msg = String.format("{ \"message\": \"Error: %s\" }", ex.getMessage());
+            if (msg.contains("unauthorized")) {
+                ctx.status(401);
+                ctx.result(msg);
+            } else if (msg.contains("too many analysis requests")) {
+                ctx.status(429);
+                ctx.result(msg);
+            } else if (msg.contains("server busy")) {
+                ctx.status(503);
+                ctx.result(msg);
+            } else {
+                ctx.status(400);
+                ctx.result(msg);
+            }
+        }
+    }
+
+    private static Integer parseInteger(String value) throws Exception {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException ex) {
+            throw new Exception("Bad Request");
+        }
+    }
+
     public int run(int desiredPort) {
         javalin.start(desiredPort);
         return javalin.port();
@@ -254,5 +363,16 @@ public class Server {
 
     public void stop() {
         javalin.stop();
+        analysisService.shutdown();
+        nightlyAnalysisService.shutdown();
+        try {
+            gameCache.close();
+        } catch (DataAccessException ex) {
+            System.out.printf("Cached games not written, %s%n", ex.getMessage());
+        }
+        var pool = DatabaseManager.poolStats();
+        System.out.printf("Connection pool: %d borrows, %d opened, %d evicted, %d timeouts, "
+                        + "wait %.2f ms average, %.2f ms max%n", pool.borrows(), pool.created(), pool.evicted(),
+                pool.timeouts(), pool.averageWaitMillis(), pool.maxWaitMillis());
     }
 }
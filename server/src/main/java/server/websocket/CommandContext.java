@@ -0,0 +1,117 @@
+package server.websocket;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import datamodel.GameData;
+
+/**
+ * Everything one websocket command needs, resolved once per command.
+ * <p>
+ * The user behind the auth token and the game are each read from the database the first
+ * time they are asked for, and reused by every check and by the command itself.
+ */
+class CommandContext {
+
+    /**
+     * One check a command must pass, throwing with the message to send the client if not.
+     */
+    @FunctionalInterface
+    interface Validator {
+        void validate(CommandContext context) throws Exception;
+    }
+
+    private final DataAccess dataAccess;
+    private final String authToken;
+    private final Integer gameID;
+
+    private boolean userLoaded;
+    private String user;
+    private boolean gameLoaded;
+    private GameData gameData;
+    private ChessMove played;
+    private ChessGame afterMove;
+
+    CommandContext(DataAccess dataAccess, String authToken, Integer gameID) {
+        this.dataAccess = dataAccess;
+        this.authToken = authToken;
+        this.gameID = gameID;
+    }
+
+    /**
+     * Runs the checks in order, stopping at the first that fails.
+     */
+    CommandContext validate(Validator... validators) throws Exception {
+        for (Validator validator : validators) {
+            validator.validate(this);
+        }
+        return this;
+    }
+
+    String authToken() {
+        return authToken;
+    }
+
+    Integer gameID() {
+        return gameID;
+    }
+
+    /**
+     * @return the user the auth token belongs to, or null if it is not valid
+     */
+    String user() throws DataAccessException {
+        if (!userLoaded) {
+            user = dataAccess.getAuthUser(authToken);
+            userLoaded = true;
+        }
+        return user;
+    }
+
+    /**
+     * @return the game as stored, or as last written through {@link #save}; null if there
+     * is no such game
+     */
+    GameData gameData() throws DataAccessException {
+        if (!gameLoaded) {
+            gameData = dataAccess.getGameFromID(gameID);
+            gameLoaded = true;
+        }
+        return gameData;
+    }
+
+    /**
+     * @return a copy of the game with the move made; the move is only played once however
+     * often this is asked
+     */
+    ChessGame afterMove(ChessMove move) throws DataAccessException, InvalidMoveException {
+        if (afterMove == null || !move.equals(played)) {
+            ChessGame game = gameData().game().copyGame();
+            game.makeMove(move);
+            played = move;
+            afterMove = game;
+        }
+        return afterMove;
+    }
+
+    boolean isPlayer() throws DataAccessException {
+        return user().equals(gameData().whiteUsername()) || user().equals(gameData().blackUsername());
+    }
+
+    /**
+     * @return the user's color; only meaningful once the user is known to be a player
+     */
+    ChessGame.TeamColor playerColor() throws DataAccessException {
+        return user().equals(gameData().whiteUsername()) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+    }
+
+    /**
+     * Writes the game and keeps it as this command's view of it.
+     */
+    void save(GameData updated) throws DataAccessException {
+        dataAccess.addGame(updated);
+        gameData = updated;
+        gameLoaded = true;
+    }
+}
@@ -1,33 +1,105 @@
 package server.websocket;
 
 import com.google.gson.Gson;
+import dataaccess.DataAccessException;
 import org.eclipse.jetty.websocket.api.Session;
 import websocket.messages.*;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class ConnectionManager {
-    public final ConcurrentHashMap<Integer, ArrayList<Session>> connections = new ConcurrentHashMap<>();
 
-    public void add(Integer gameID, Session session) {
-        if (!connections.containsKey(gameID)) {
-            connections.put(gameID, new ArrayList<>());
+    /**
+     * Told when a game gets its first session and when its last session goes away.
+     */
+    public interface GameListener {
+        void gameOpened(Integer gameID) throws DataAccessException;
+
+        void gameClosed(Integer gameID) throws DataAccessException;
+    }
+
+    private interface GameAction<E extends Exception> {
+        void run() throws E;
+    }
+
+    private static final GameListener NO_LISTENER = new GameListener() {
+        @Override
+        public void gameOpened(Integer gameID) {
         }
-        var sessionList = connections.get(gameID);
-        sessionList.add(session);
-        connections.put(gameID, sessionList);
+
+        @Override
+        public void gameClosed(Integer gameID) {
+        }
+    };
+
+    public final ConcurrentHashMap<Integer, List<Session>> connections = new ConcurrentHashMap<>();
+    private final GameListener listener;
+    // serializes the listener calls of one game without holding up the others; only games
+    // with sessions, or with a call in progress, have one
+    private final ConcurrentHashMap<Integer, Object> gameLocks = new ConcurrentHashMap<>();
+
+    public ConnectionManager(GameListener listener) {
+        this.listener = listener;
+    }
+
+    public ConnectionManager() {
+        this(NO_LISTENER);
+    }
+
+    /**
+     * Adds a session, loading the game through the listener if it is the first. Only that
+     * game's connects and leaves wait for the listener.
+     */
+    public void add(Integer gameID, Session session) throws DataAccessException {
+        withGameLock(gameID, () -> {
+            boolean opened;
+            synchronized (this) {
+                opened = !connections.containsKey(gameID);
+            }
+            if (opened) {
+                listener.gameOpened(gameID);
+            }
+            synchronized (this) {
+                connections.computeIfAbsent(gameID, id -> new CopyOnWriteArrayList<>()).add(session);
+            }
+        });
     }
 
     public void remove(Integer gameID, Session session) throws Exception {
-        var sessionList = connections.get(gameID);
-        if (sessionList.contains(session)) {
-            sessionList.remove(session);
-        } else {
-            throw new Exception("Error: session not found for removal");
-        }
+        withGameLock(gameID, () -> {
+            boolean closed;
+            synchronized (this) {
+                var sessionList = connections.get(gameID);
+                if (sessionList == null || !sessionList.remove(session)) {
+                    throw new Exception("Error: session not found for removal");
+                }
+                closed = removeIfEmpty(gameID);
+            }
+            if (closed) {
+                listener.gameClosed(gameID);
+            }
+        });
+    }
 
+    /**
+     * Removes a closed session from every game it was in.
+     */
+    public void removeSession(Session session) throws DataAccessException {
+        for (Integer gameID : connections.keySet()) {
+            withGameLock(gameID, () -> {
+                boolean closed;
+                synchronized (this) {
+                    var sessionList = connections.get(gameID);
+                    closed = sessionList != null && sessionList.remove(session) && removeIfEmpty(gameID);
+                }
+                if (closed) {
+                    listener.gameClosed(gameID);
+                }
+            });
+        }
     }
 
     public void send(Session targetSession, ServerMessage notification) throws IOException {
@@ -42,6 +114,9 @@ public class ConnectionManager {
         var serializer = new Gson();
         String msg = serializer.toJson(notification);
         var sessionList = connections.get(gameID);
+        if (sessionList == null) {
+            return;
+        }
         for (Session c : sessionList) {
             if (c.isOpen()) {
                 if (!c.equals(excludeSession)) {
@@ -50,4 +125,49 @@ public class ConnectionManager {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Must hold this monitor.
+     *
+     * @return whether the game had no sessions left and was removed
+     */
+    private boolean removeIfEmpty(Integer gameID) {
+        if (connections.get(gameID).isEmpty()) {
+            connections.remove(gameID);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Runs the action holding the game's lock, and drops the lock once the game has no
+     * sessions left. A thread that was waiting on a dropped lock takes the new one instead.
+     */
+    private <E extends Exception> void withGameLock(Integer gameID, GameAction<E> action) throws E {
+        while (true) {
+            Object lock = gameLocks.computeIfAbsent(gameID, id -> new Object());
+            synchronized (lock) {
+                if (gameLocks.get(gameID) != lock) {
+                    continue;
+                }
+                try {
+                    action.run();
+                } finally {
+                    synchronized (this) {
+                        if (!connections.containsKey(gameID)) {
+                            gameLocks.remove(gameID, lock);
+                        }
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return how many games currently have a lock
+     */
+    int lockCount() {
+        return gameLocks.size();
+    }
+}
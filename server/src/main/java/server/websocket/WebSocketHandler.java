@@ -4,7 +4,6 @@ import chess.*;
 import com.google.gson.Gson;
 import dataaccess.DataAccess;
 import dataaccess.DataAccessException;
-import dataaccess.SQLDataAccess;
 import datamodel.*;
 import io.javalin.websocket.WsCloseContext;
 import io.javalin.websocket.WsCloseHandler;
@@ -20,18 +19,12 @@ import java.io.IOException;
 
 public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsCloseHandler {
 
-    private final ConnectionManager connections = new ConnectionManager();
+    private final ConnectionManager connections;
     private final DataAccess dataAccess;
 
-    public WebSocketHandler(){
-        try {
-            dataAccess = new SQLDataAccess();
-            System.out.println("SQL connection successful");
-        } catch (Exception ex) {
-//            dataAccess = new MemoryDataAccess();
-//            System.out.println("SQL connection failed, using memory");
-            throw new RuntimeException(String.format("SQL connection in WebSocket failed, %s",ex));
-        }
+    public WebSocketHandler(DataAccess dataAccess, ConnectionManager connections) {
+        this.dataAccess = dataAccess;
+        this.connections = connections;
     }
 
     @Override
@@ -69,28 +62,27 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
     @Override
     public void handleClose(WsCloseContext ctx) {
         System.out.println("WebSocket closed");
+        try {
+            connections.removeSession(ctx.session);
+        } catch (DataAccessException ex) {
+            ex.printStackTrace();
+        }
     }
 
     private void connect(String authToken, Integer gameID, Session session) throws IOException {
         try {
             // check user, game
-            checkAuth(authToken);
-            checkGame(gameID);
-            var user = dataAccess.getAuthUser(authToken);
-            var game = dataAccess.getGameFromID(gameID);
+            var context = new CommandContext(dataAccess, authToken, gameID)
+                    .validate(this::checkAuth, this::checkGame);
+            var user = context.user();
 
             connections.add(gameID, session);
-            var message = new ServerLoadGame(game);
+            var message = new ServerLoadGame(context.gameData());
             connections.send(session, message);
-            try {
-                String color = checkPlayerColor(authToken, gameID) == ChessGame.TeamColor.WHITE ? "White" : "Black";
-                connections.broadcast(gameID, session, new ServerNotification(
-                        String.format("Player %s joined the game as %s.", user, color)));
-            } catch (Exception ex) {
-                String color = "Observer";
-                connections.broadcast(gameID, session, new ServerNotification(
-                        String.format("Player %s joined the game as %s.", user, color)));
-            }
+            String color = !context.isPlayer() ? "Observer"
+                    : context.playerColor() == ChessGame.TeamColor.WHITE ? "White" : "Black";
+            connections.broadcast(gameID, session, new ServerNotification(
+                    String.format("Player %s joined the game as %s.", user, color)));
 
         } catch (DataAccessException ex) {
             throw new IOException(ex.getMessage());
@@ -103,41 +95,29 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
     private void makeMove(String authToken, Integer gameID, ChessMove move, Session session) throws IOException {
         try {
             // check user, game, observer, piece
-            checkAuth(authToken);
-            checkGame(gameID);
-            checkGameEnded(gameID);
-            checkObserver(authToken,gameID);
-            checkTurn(authToken, gameID);
-            checkMove(authToken, gameID, move);
-            checkOwnership(authToken, gameID, move.getStartPosition());
-
-            var gameData = dataAccess.getGameFromID(gameID);
-            var turn = gameData.game().getTeamTurn();
-            var user = dataAccess.getAuthUser(authToken);
-            var blackPlayer = gameData.blackUsername();
-            var whitePlayer = gameData.whiteUsername();
-            var pieceColor = gameData.game().getBoard().getPiece(move.getStartPosition()).getTeamColor();
-            var newGame = gameData.game().copyGame();
-
-            try {
-                newGame.makeMove(move);
-                var newGameData = new GameData(gameID, gameData.whiteUsername(), gameData.blackUsername(), gameData.gameName(), newGame);
-                dataAccess.addGame(newGameData);
-                var load = new ServerLoadGame(newGameData);
-                connections.broadcast(newGameData.gameID(), null, load);
-                var msg = new ServerNotification(
-                        String.format("%s made their move %s to %s.", user,
-                                coordToReadable(move.getStartPosition()), coordToReadable(move.getEndPosition())));
-                connections.broadcast(gameID, session, msg);
-            } catch (InvalidMoveException ex) {
-                var error = new ServerError("Invalid move.");
-                connections.send(session, error);
-            }
+            var context = new CommandContext(dataAccess, authToken, gameID)
+                    .validate(this::checkAuth, this::checkGame, this::checkGameEnded, this::checkObserver,
+                            this::checkTurn, c -> checkMove(c, move),
+                            c -> checkOwnership(c, move.getStartPosition()));
+
+            var gameData = context.gameData();
+            var user = context.user();
+            // played once already by checkMove
+            var newGame = context.afterMove(move);
+
+            var newGameData = new GameData(gameID, gameData.whiteUsername(), gameData.blackUsername(), gameData.gameName(), newGame);
+            context.save(newGameData);
+            var load = new ServerLoadGame(newGameData);
+            connections.broadcast(newGameData.gameID(), null, load);
+            var notification = new ServerNotification(
+                    String.format("%s made their move %s to %s.", user,
+                            coordToReadable(move.getStartPosition()), coordToReadable(move.getEndPosition())));
+            connections.broadcast(gameID, session, notification);
 
             //check and checkmate messages
-            String oppColor = checkPlayerColor(authToken, gameID) == ChessGame.TeamColor.WHITE ? "Black" : "White";
+            String oppColor = context.playerColor() == ChessGame.TeamColor.WHITE ? "Black" : "White";
             try {
-                checkMate(gameID);
+                checkMate(context);
             } catch (Exception ex) {
                 var msg = new ServerNotification(String.format(("%s player %s "
                         + ex.getMessage()), oppColor, user));
@@ -155,30 +135,31 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
     private void leave(String authToken, Integer gameID, Session session) throws IOException {
         try {
             // check user, game
-            checkAuth(authToken);
-            checkGame(gameID);
-            var user = dataAccess.getAuthUser(authToken);
-            var gameData = dataAccess.getGameFromID(gameID);
+            var context = new CommandContext(dataAccess, authToken, gameID)
+                    .validate(this::checkAuth, this::checkGame);
+            var user = context.user();
+            var gameData = context.gameData();
             var blackPlayer = gameData.blackUsername();
             var whitePlayer = gameData.whiteUsername();
 
-            try {
-                checkObserver(authToken, gameID);
-            } catch (Exception ex) {
+            if (!context.isPlayer()) {
                 var notification = new ServerNotification(String.format("%s stopped observing the game.", user));
                 connections.broadcast(gameID, session, notification);
                 connections.remove(gameID, session);
+                return;
             }
 
             if (user.equals(whitePlayer)) {
                 var notification = new ServerNotification(String.format("White player %s left the game.", user));
                 connections.broadcast(gameID, session, notification);
+                whitePlayer = null;
             }
             if (user.equals(blackPlayer)) {
                 var notification = new ServerNotification(String.format("Black player %s left the game.", user));
                 connections.broadcast(gameID, session, notification);
+                blackPlayer = null;
             }
-            dataAccess.joinGame(gameID, "leave", authToken);
+            context.save(new GameData(gameID, whitePlayer, blackPlayer, gameData.gameName(), gameData.game()));
             connections.remove(gameID, session);
         } catch (DataAccessException ex) {
             throw new IOException(ex.getMessage());
@@ -191,30 +172,18 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
     private void resign(String authToken, Integer gameID, Session session) throws IOException {
         try {
             // check user, game, ended, observer
-            checkAuth(authToken);
-            checkGame(gameID);
-            checkGameEnded(gameID);
-            checkObserver(authToken, gameID);
-            var user = dataAccess.getAuthUser(authToken);
-            var gameData = dataAccess.getGameFromID(gameID);
-            var blackPlayer = gameData.blackUsername();
-            var whitePlayer = gameData.whiteUsername();
-
-            if (user.equals(whitePlayer)) {
-                var newGameData = new GameData(gameID, gameData.whiteUsername(), gameData.blackUsername(),
-                        gameData.gameName(), gameData.game().copyGame());
-                newGameData.game().setGameFinished(true);
-                dataAccess.addGame(newGameData);
-                var notification = new ServerNotification(String.format("White player %s resigned.", user));
-                connections.broadcast(gameID, null, notification);
-            } else if (user.equals(blackPlayer)) {
-                var newGameData = new GameData(gameID, gameData.whiteUsername(), gameData.blackUsername(),
-                        gameData.gameName(), gameData.game().copyGame());
-                newGameData.game().setGameFinished(true);
-                dataAccess.addGame(newGameData);
-                var notification = new ServerNotification(String.format("Black player %s resigned.", user));
-                connections.broadcast(gameID, null, notification);
-            }
+            var context = new CommandContext(dataAccess, authToken, gameID)
+                    .validate(this::checkAuth, this::checkGame, this::checkGameEnded, this::checkObserver);
+            var user = context.user();
+            var gameData = context.gameData();
+
+            var newGameData = new GameData(gameID, gameData.whiteUsername(), gameData.blackUsername(),
+                    gameData.gameName(), gameData.game().copyGame());
+            newGameData.game().setGameFinished(true);
+            context.save(newGameData);
+            String color = context.playerColor() == ChessGame.TeamColor.WHITE ? "White" : "Black";
+            var notification = new ServerNotification(String.format("%s player %s resigned.", color, user));
+            connections.broadcast(gameID, null, notification);
         } catch (DataAccessException ex) {
             throw new IOException(ex.getMessage());
         } catch (Exception ex) {
@@ -233,92 +202,62 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
         connections.broadcast(gameID, null, notification);
     }
 
-    private void checkAuth(String authToken) throws Exception {
-        var user = dataAccess.getAuthUser(authToken);
-        if (user == null) {
+    private void checkAuth(CommandContext context) throws Exception {
+        if (context.user() == null) {
             throw new Exception("Unauthorized");
         }
     }
 
-    private void checkGame(Integer gameID) throws Exception {
-        var gameData = dataAccess.getGameFromID(gameID);
-        if (gameData == null) {
+    private void checkGame(CommandContext context) throws Exception {
+        if (context.gameData() == null) {
             throw new Exception("Game does not exist!");
         }
     }
 
-    private ChessGame.TeamColor checkPlayerColor(String authToken, Integer gameID) throws Exception {
-        checkObserver(authToken,gameID);
-        var user = dataAccess.getAuthUser(authToken);
-        var gameData = dataAccess.getGameFromID(gameID);
-        var blackPlayer = gameData.blackUsername();
-        var whitePlayer = gameData.whiteUsername();
-        var playerTeam = user.equals(whitePlayer) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
-        return playerTeam;
-    }
-
-    private void checkTurn(String authToken, Integer gameID) throws Exception {
-        var gameData = dataAccess.getGameFromID(gameID);
-        var team = checkPlayerColor(authToken, gameID);
-        if (!gameData.game().getTeamTurn().equals(team)) {
+    private void checkTurn(CommandContext context) throws Exception {
+        if (!context.gameData().game().getTeamTurn().equals(context.playerColor())) {
             throw new Exception("It is not your turn.");
         }
     }
 
-    private void checkMove(String authToken, Integer gameID, ChessMove move) throws Exception {
+    private void checkMove(CommandContext context, ChessMove move) throws Exception {
         try {
-            var gameData = dataAccess.getGameFromID(gameID);
-            var game = gameData.game();
-            var testGame = game.copyGame();
             if (move == null) {
                 throw new Exception("Invalid Coordinates");
             }
-            testGame.makeMove(move);
+            context.afterMove(move);
         } catch (Exception ex) {
             throw new Exception("Invalid move.");
         }
     }
 
-    private void checkGameEnded(Integer gameID) throws Exception {
-        var gameData = dataAccess.getGameFromID(gameID);
-        var game = gameData.game();
-        if (game.checkGameFinished()) {
+    private void checkGameEnded(CommandContext context) throws Exception {
+        if (context.gameData().game().checkGameFinished()) {
             throw new Exception("Game has ended.");
         }
     }
 
-    private void checkObserver(String authToken, Integer gameID) throws Exception {
-        var user = dataAccess.getAuthUser(authToken);
-        var gameData = dataAccess.getGameFromID(gameID);
-        var blackPlayer = gameData.blackUsername();
-        var whitePlayer = gameData.whiteUsername();
-        if (!user.equals(blackPlayer) && !user.equals(whitePlayer)) {
+    private void checkObserver(CommandContext context) throws Exception {
+        if (!context.isPlayer()) {
             throw new Exception("You cannot do that as an observer.");
         }
     }
 
-    private void checkOwnership(String authToken, Integer gameID, ChessPosition position) throws Exception {
-        var gameData = dataAccess.getGameFromID(gameID);
-        var pieceColor = gameData.game().getBoard().getPiece(position).getTeamColor();
-        var player = checkPlayerColor(authToken, gameID);
-        if (pieceColor != player) {
+    private void checkOwnership(CommandContext context, ChessPosition position) throws Exception {
+        var pieceColor = context.gameData().game().getBoard().getPiece(position).getTeamColor();
+        if (pieceColor != context.playerColor()) {
             throw new Exception("That is not your piece.");
         }
     }
 
-    private void checkMate(Integer gameID) throws Exception {
-        var gameData = dataAccess.getGameFromID(gameID);
-        var game = gameData.game();
-        if (game.isInCheckmate(ChessGame.TeamColor.WHITE)) {
+    private void checkMate(CommandContext context) throws Exception {
+        var game = context.gameData().game();
+        var white = game.getStatus(ChessGame.TeamColor.WHITE);
+        var black = game.getStatus(ChessGame.TeamColor.BLACK);
+        if (white.checkmate() || black.checkmate()) {
             throw new Exception("is in Checkmate.");
         }
-        if (game.isInCheckmate(ChessGame.TeamColor.BLACK)) {
-            throw new Exception("is in Checkmate.");
-        }
-        if (game.isInCheck(ChessGame.TeamColor.WHITE)) {
-            throw new Exception("is in Check.");
-        }
-        if (game.isInCheck(ChessGame.TeamColor.BLACK)) {
+        if (white.inCheck() || black.inCheck()) {
             throw new Exception("is in Check.");
         }
     }
@@ -0,0 +1,203 @@
+package service;
+
+import chess.ChessMove;
+import chess.PackedMove;
+import chess.engine.OpeningBook;
+import chess.engine.ParallelSearch;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.Tablebases;
+import chess.engine.TranspositionTable;
+import dataaccess.DataAccess;
+import datamodel.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs engine analysis of stored games on a small dedicated pool, so searches never
+ * occupy the threads that serve gameplay requests. Each analysis runs a
+ * {@link ParallelSearch} over searchThreads threads, so deeper analysis comes with more
+ * cores rather than more concurrent requests.
+ * <p>
+ * Requests beyond the queue limit are rejected rather than queued, and each user may
+ * only have a few requests waiting or running at once, so one client cannot crowd out
+ * everyone else. Cancelling a returned future stops its search.
+ * <p>
+ * Positions found in the opening book are answered from it straight away, without a
+ * search; such answers have no score. Searches consult the endgame tablebases, when
+ * given, for positions with three pieces or fewer. Finished games that the nightly
+ * analysis has already covered are answered with its result.
+ */
+public class AnalysisService {
+
+    public static final int MAX_DEPTH = 20;
+    public static final long DEFAULT_MILLIS = 1000;
+    public static final long MAX_MILLIS = 5000;
+    private static final int TABLE_MB = 16;
+
+    private final DataAccess dataAccess;
+    private final OpeningBook book;
+    private final Tablebases tablebases;
+    private final int perUserLimit;
+    private final int searchThreads;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Integer> inFlight = new ConcurrentHashMap<>();
+    private volatile NightlyAnalysisService nightly;
+    // one search, and its helper threads, per pool thread; kept to be closed on shutdown
+    private final List<ParallelSearch> searches = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<ParallelSearch> search = ThreadLocal.withInitial(this::newSearch);
+
+    /**
+     * @param threads       how many analyses run at once
+     * @param searchThreads how many threads each analysis searches with
+     */
+    public AnalysisService(DataAccess dataAccess, int threads, int searchThreads, int queueLimit, int perUserLimit,
+                           OpeningBook book, Tablebases tablebases) {
+        this.dataAccess = dataAccess;
+        this.book = book;
+        this.tablebases = tablebases;
+        this.perUserLimit = perUserLimit;
+        this.searchThreads = searchThreads;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueLimit), runnable -> {
+                    Thread thread = new Thread(runnable, "analysis");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public AnalysisService(DataAccess dataAccess, int threads, int queueLimit, int perUserLimit) {
+        this(dataAccess, threads, 1, queueLimit, perUserLimit, null, null);
+    }
+
+    /**
+     * Two analyses at a time, sharing half the cores between their searches.
+     */
+    public AnalysisService(DataAccess dataAccess, OpeningBook book, Tablebases tablebases) {
+        this(dataAccess, 2, Math.max(1, Runtime.getRuntime().availableProcessors() / 4), 16, 2, book, tablebases);
+    }
+
+    public CompletableFuture<AnalysisData> analyze(String auth, Integer gameID, Integer depth, Long millis) throws Exception {
+        String username = dataAccess.getAuthUser(auth);
+        if (username == null) {
+            throw new Exception("unauthorized");
+        }
+        GameData gameData = gameID == null ? null : dataAccess.getGameFromID(gameID);
+        if (gameData == null || gameData.game() == null) {
+            throw new Exception("Bad Request");
+        }
+        NightlyAnalysisService finished = nightly;
+        AnalysisData stored = finished == null || !gameData.game().checkGameFinished() ? null
+                : finished.latest(gameID);
+        if (stored != null) {
+            return CompletableFuture.completedFuture(stored);
+        }
+        int searchDepth = depth == null ? MAX_DEPTH : Math.max(1, Math.min(depth, MAX_DEPTH));
+        long searchMillis = millis == null ? DEFAULT_MILLIS : Math.max(1, Math.min(millis, MAX_MILLIS));
+
+        int bookMove = book == null ? 0 : book.bestMove(gameData.game());
+        if (bookMove != 0) {
+            String notation = PackedMove.toNotation(bookMove);
+            return CompletableFuture.completedFuture(new AnalysisData(gameID, notation, null, 0, 0L, List.of(notation)));
+        }
+
+        if (!admit(username)) {
+            throw new Exception("too many analysis requests");
+        }
+        Job job = new Job(gameData, new SearchLimits(searchDepth, searchMillis, 0));
+        job.future.whenComplete((result, ex) -> {
+            release(username);
+            if (job.future.isCancelled()) {
+                job.cancel();
+            }
+        });
+        try {
+            executor.execute(job);
+        } catch (RejectedExecutionException ex) {
+            job.future.cancel(false);
+            throw new Exception("server busy");
+        }
+        return job.future;
+    }
+
+    /**
+     * Answers finished games from the nightly results where it has them.
+     */
+    public void setNightlyResults(NightlyAnalysisService nightly) {
+        this.nightly = nightly;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        for (ParallelSearch running : searches) {
+            running.close();
+        }
+    }
+
+    private ParallelSearch newSearch() {
+        var parallel = new ParallelSearch(searchThreads, new TranspositionTable(TABLE_MB * searchThreads));
+        parallel.setTablebases(tablebases);
+        searches.add(parallel);
+        return parallel;
+    }
+
+    private boolean admit(String username) {
+        boolean[] admitted = {false};
+        inFlight.compute(username, (user, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= perUserLimit) {
+                return count;
+            }
+            admitted[0] = true;
+            return current + 1;
+        });
+        return admitted[0];
+    }
+
+    private void release(String username) {
+        inFlight.computeIfPresent(username, (user, count) -> count <= 1 ? null : count - 1);
+    }
+
+    private class Job implements Runnable {
+
+        private final GameData gameData;
+        private final SearchLimits limits;
+        private final CompletableFuture<AnalysisData> future = new CompletableFuture<>();
+        // set by cancel, which may come before the search starts
+        private final AtomicBoolean stop = new AtomicBoolean();
+
+        Job(GameData gameData, SearchLimits limits) {
+            this.gameData = gameData;
+            this.limits = limits;
+        }
+
+        @Override
+        public void run() {
+            if (stop.get() || future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(toAnalysisData(gameData.gameID(), search.get().search(gameData.game(), limits, stop)));
+            } catch (RuntimeException ex) {
+                future.completeExceptionally(ex);
+            }
+        }
+
+        void cancel() {
+            stop.set(true);
+        }
+    }
+
+    static AnalysisData toAnalysisData(Integer gameID, SearchResult result) {
+        List<String> line = new ArrayList<>();
+        for (ChessMove move : result.principalVariation()) {
+            line.add(PackedMove.toNotation(PackedMove.of(move)));
+        }
+        String bestMove = result.bestMove() == null ? null : PackedMove.toNotation(PackedMove.of(result.bestMove()));
+        return new AnalysisData(gameID, bestMove, result.score(), result.depth(), result.nodes(), line);
+    }
+}
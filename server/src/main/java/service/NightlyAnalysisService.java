@@ -0,0 +1,126 @@
+package service;
+
+import chess.ChessGame;
+import chess.engine.BatchAnalyzer;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import datamodel.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Analyzes the final position of every finished game once a night.
+ * <p>
+ * The games table keeps only each game's current position, not its moves, so that is
+ * the position analyzed; games that ended in checkmate or stalemate have nothing left to
+ * search and are skipped, leaving resigned games, where the result says whether giving up
+ * was justified. Games are searched in one batch on a fork/join pool of their own, so the
+ * searches never compete with request threads. A finished game does not change, so each
+ * is analyzed once; results are kept in memory and served by {@link AnalysisService}.
+ */
+public class NightlyAnalysisService {
+
+    public static final SearchLimits DEFAULT_LIMITS = new SearchLimits(12, 2000, 0);
+    private static final int TABLE_MB = 16;
+
+    private final DataAccess dataAccess;
+    private final BatchAnalyzer analyzer;
+    // null when the analyzer runs on a pool the caller owns
+    private final ForkJoinPool pool;
+    private final Map<Integer, AnalysisData> results = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "nightly-analysis");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public NightlyAnalysisService(DataAccess dataAccess, BatchAnalyzer analyzer) {
+        this(dataAccess, analyzer, null);
+    }
+
+    public NightlyAnalysisService(DataAccess dataAccess, int threads) {
+        this(dataAccess, new ForkJoinPool(threads));
+    }
+
+    private NightlyAnalysisService(DataAccess dataAccess, ForkJoinPool pool) {
+        this(dataAccess, new BatchAnalyzer(pool, DEFAULT_LIMITS, TABLE_MB), pool);
+    }
+
+    private NightlyAnalysisService(DataAccess dataAccess, BatchAnalyzer analyzer, ForkJoinPool pool) {
+        this.dataAccess = dataAccess;
+        this.analyzer = analyzer;
+        this.pool = pool;
+    }
+
+    /**
+     * Runs {@link #analyzeFinishedGames()} every day at the given local time.
+     */
+    public void start(LocalTime at) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.with(at);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        scheduler.scheduleAtFixedRate(this::runQuietly, Duration.between(now, next).toMillis(),
+                TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return one result per finished game not analyzed before
+     */
+    public List<AnalysisData> analyzeFinishedGames() throws DataAccessException {
+        List<GameData> finished = new ArrayList<>();
+        List<ChessGame> positions = new ArrayList<>();
+        for (GameData game : dataAccess.listGames().games()) {
+            if (game.game() != null && game.game().checkGameFinished() && !results.containsKey(game.gameID())
+                    && game.game().getStatus(game.game().getTeamTurn()).validMoveCount() > 0) {
+                finished.add(game);
+                positions.add(game.game());
+            }
+        }
+        if (positions.isEmpty()) {
+            return List.of();
+        }
+        List<SearchResult> searched = analyzer.analyze(positions);
+        List<AnalysisData> analyses = new ArrayList<>(finished.size());
+        for (int i = 0; i < finished.size(); i++) {
+            AnalysisData analysis = AnalysisService.toAnalysisData(finished.get(i).gameID(), searched.get(i));
+            results.put(analysis.gameID(), analysis);
+            analyses.add(analysis);
+        }
+        return analyses;
+    }
+
+    /**
+     * @return the nightly result for the game, or null if it has none yet
+     */
+    public AnalysisData latest(Integer gameID) {
+        return gameID == null ? null : results.get(gameID);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void runQuietly() {
+        try {
+            long start = System.nanoTime();
+            int games = analyzeFinishedGames().size();
+            System.out.printf("Nightly analysis of %d finished games took %.1f s%n", games,
+                    (System.nanoTime() - start) / 1e9);
+        } catch (Exception ex) {
+            System.out.printf("Nightly analysis failed, %s%n", ex.getMessage());
+        }
+    }
+}
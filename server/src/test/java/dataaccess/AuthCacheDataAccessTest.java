@@ -0,0 +1,100 @@
+package dataaccess;
+
+import datamodel.AuthData;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthCacheDataAccessTest {
+
+    /**
+     * Counts the token lookups that reach the store
+     */
+    private static class CountingDataAccess extends MemoryDataAccess {
+        int lookups;
+
+        @Override
+        public String getAuthUser(String auth) throws DataAccessException {
+            lookups++;
+            return super.getAuthUser(auth);
+        }
+    }
+
+    @Test
+    void servesRepeatedLookups() throws Exception {
+        var store = new CountingDataAccess();
+        store.addAuth(new AuthData("user", "token"));
+        var cache = new AuthCacheDataAccess(store);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("user", cache.getAuthUser("token"));
+        }
+        assertEquals(1, store.lookups);
+        assertEquals(9, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(0.9, cache.hitRate(), 1e-9);
+    }
+
+    @Test
+    void doesNotCacheUnknownTokens() throws Exception {
+        var store = new CountingDataAccess();
+        var cache = new AuthCacheDataAccess(store);
+        assertNull(cache.getAuthUser("bad"));
+        assertNull(cache.getAuthUser("bad"));
+        assertNull(cache.getAuthUser(null));
+        assertEquals(3, store.lookups);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidatesOnLogoutAndClear() throws Exception {
+        var store = new CountingDataAccess();
+        var cache = new AuthCacheDataAccess(store);
+        cache.addAuth(new AuthData("user", "token"));
+        assertEquals("user", cache.getAuthUser("token"));
+        assertEquals(0, store.lookups);
+
+        cache.delAuth("token");
+        assertNull(cache.getAuthUser("token"));
+
+        cache.addAuth(new AuthData("user", "other"));
+        cache.clear();
+        assertNull(cache.getAuthUser("other"));
+    }
+
+    @Test
+    void expiresAfterTtl() throws Exception {
+        var store = new CountingDataAccess();
+        store.addAuth(new AuthData("user", "token"));
+        var cache = new AuthCacheDataAccess(store, 50, 100);
+        assertEquals("user", cache.getAuthUser("token"));
+        Thread.sleep(100);
+        assertEquals("user", cache.getAuthUser("token"));
+        assertEquals(2, store.lookups);
+    }
+
+    @Test
+    void staysWithinSize() throws Exception {
+        var store = new CountingDataAccess();
+        var cache = new AuthCacheDataAccess(store, 60_000, 16);
+        for (int i = 0; i < 100; i++) {
+            cache.addAuth(new AuthData("user" + i, "token" + i));
+            assertTrue(cache.size() <= 16);
+        }
+        // the newest tokens survive, older ones are read again from the store
+        assertEquals("user99", cache.getAuthUser("token99"));
+        assertEquals(0, store.lookups);
+        assertEquals("user0", cache.getAuthUser("token0"));
+        assertEquals(1, store.lookups);
+    }
+
+    @Test
+    void sweepsExpiredEntries() throws Exception {
+        var cache = new AuthCacheDataAccess(new CountingDataAccess(), 50, 100);
+        for (int i = 0; i < 5; i++) {
+            cache.addAuth(new AuthData("user" + i, "token" + i));
+        }
+        Thread.sleep(100);
+        cache.addAuth(new AuthData("user", "token"));
+        assertEquals(1, cache.size());
+    }
+}
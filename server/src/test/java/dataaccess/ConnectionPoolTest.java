@@ -0,0 +1,144 @@
+package dataaccess;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionPoolTest {
+
+    /**
+     * Stands in for a MySQL connection, recording whether it was closed
+     */
+    private static class FakeConnection {
+        boolean closed;
+        boolean valid = true;
+
+        Connection connection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closed = true;
+                            yield null;
+                        }
+                        case "isClosed" -> closed;
+                        case "isValid" -> valid;
+                        case "getAutoCommit" -> true;
+                        case "getCatalog" -> "chess";
+                        default -> null;
+                    });
+        }
+    }
+
+    private final List<FakeConnection> opened = new ArrayList<>();
+
+    private ConnectionPool pool(int min, int max, long idleMillis, long waitMillis) {
+        return new ConnectionPool(() -> {
+            FakeConnection fake = new FakeConnection();
+            opened.add(fake);
+            return fake.connection();
+        }, min, max, idleMillis, waitMillis);
+    }
+
+    @Test
+    void closeReturnsConnection() throws Exception {
+        try (ConnectionPool pool = pool(0, 2, 60_000, 1000)) {
+            Connection first = pool.borrow();
+            assertEquals("chess", first.getCatalog());
+            first.close();
+            first.close();
+            assertTrue(first.isClosed());
+            assertThrows(SQLException.class, first::getCatalog);
+
+            try (Connection second = pool.borrow()) {
+                assertEquals("chess", second.getCatalog());
+            }
+            assertEquals(1, opened.size());
+            assertFalse(opened.get(0).closed);
+            ConnectionPool.Stats stats = pool.stats();
+            assertEquals(2, stats.borrows());
+            assertEquals(1, stats.idle());
+        }
+        assertTrue(opened.get(0).closed);
+    }
+
+    @Test
+    void waitsForReturnedConnection() throws Exception {
+        try (ConnectionPool pool = pool(0, 1, 60_000, 5000)) {
+            Connection held = pool.borrow();
+            CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return pool.borrow();
+                } catch (SQLException ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+            Thread.sleep(50);
+            assertFalse(waiting.isDone());
+            held.close();
+            waiting.get(5, TimeUnit.SECONDS).close();
+            assertEquals(1, opened.size());
+            assertTrue(pool.stats().maxWaitMillis() >= 40);
+        }
+    }
+
+    @Test
+    void timesOutWhenFull() throws Exception {
+        try (ConnectionPool pool = pool(0, 1, 60_000, 50)) {
+            try (Connection ignored = pool.borrow()) {
+                assertThrows(SQLException.class, pool::borrow);
+            }
+            assertEquals(1, pool.stats().timeouts());
+        }
+    }
+
+    @Test
+    void replacesInvalidConnection() throws Exception {
+        try (ConnectionPool pool = pool(0, 1, 60_000, 1000)) {
+            pool.borrow().close();
+            opened.get(0).valid = false;
+            // recently used connections are not checked
+            Thread.sleep(600);
+            try (Connection ignored = pool.borrow()) {
+                assertEquals(2, opened.size());
+                assertTrue(opened.get(0).closed);
+            }
+        }
+    }
+
+    @Test
+    void evictsIdleConnections() throws Exception {
+        try (ConnectionPool pool = pool(1, 3, 100, 1000)) {
+            Connection a = pool.borrow();
+            Connection b = pool.borrow();
+            a.close();
+            b.close();
+            Thread.sleep(400);
+            ConnectionPool.Stats stats = pool.stats();
+            assertEquals(1, stats.total());
+            assertEquals(1, stats.evicted());
+            assertEquals(1, opened.stream().filter(fake -> fake.closed).count());
+        }
+    }
+
+    @Test
+    void closeReleasesBorrowedConnectionsOnReturn() throws Exception {
+        ConnectionPool pool = pool(0, 2, 60_000, 1000);
+        Connection borrowed = pool.borrow();
+        pool.borrow().close();
+        pool.close();
+        assertTrue(opened.get(1).closed);
+        assertFalse(opened.get(0).closed);
+        borrowed.close();
+        assertTrue(opened.get(0).closed);
+        assertEquals(0, pool.stats().total());
+        assertThrows(SQLException.class, pool::borrow);
+    }
+}
@@ -0,0 +1,197 @@
+package dataaccess;
+
+import chess.ChessGame;
+import datamodel.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameCacheDataAccessTest {
+
+    /**
+     * Counts the game reads and writes that reach the store
+     */
+    private static class CountingDataAccess extends MemoryDataAccess {
+        int reads;
+        int writes;
+
+        @Override
+        public GameData getGameFromID(Integer gameID) throws DataAccessException {
+            reads++;
+            return super.getGameFromID(gameID);
+        }
+
+        @Override
+        public void addGame(GameData game) throws DataAccessException {
+            writes++;
+            super.addGame(game);
+        }
+    }
+
+    /**
+     * Fails the first game write
+     */
+    private static class FailingOnceDataAccess extends MemoryDataAccess {
+        boolean failed;
+
+        @Override
+        public void addGame(GameData game) throws DataAccessException {
+            if (!failed) {
+                failed = true;
+                throw new DataAccessException("store unavailable");
+            }
+            super.addGame(game);
+        }
+    }
+
+    private static GameData game(String white) {
+        return new GameData(1, white, null, "game", new ChessGame());
+    }
+
+    @Test
+    void servesOpenGamesFromMemory() throws Exception {
+        var store = new CountingDataAccess();
+        store.addGame(game(null));
+        try (var cache = new GameCacheDataAccess(store, 60_000)) {
+            cache.open(1);
+            int reads = store.reads;
+            for (int i = 0; i < 5; i++) {
+                assertEquals("game", cache.getGameFromID(1).gameName());
+            }
+            assertEquals(reads, store.reads);
+
+            store.writes = 0;
+            cache.addGame(game("a"));
+            cache.addGame(game("b"));
+            assertEquals("b", cache.getGameFromID(1).whiteUsername());
+            assertEquals("b", cache.listGames().games().get(0).whiteUsername());
+            assertEquals(0, store.writes);
+            assertNull(store.getGameFromID(1).whiteUsername());
+
+            // the two writes coalesce into one
+            cache.release(1);
+            assertEquals(1, store.writes);
+            assertEquals("b", store.getGameFromID(1).whiteUsername());
+            assertFalse(cache.isCached(1));
+        }
+    }
+
+    @Test
+    void flushesWithinTheLag() throws Exception {
+        var store = new CountingDataAccess();
+        store.addGame(game(null));
+        try (var cache = new GameCacheDataAccess(store, 20)) {
+            cache.open(1);
+            cache.addGame(game("a"));
+            long deadline = System.currentTimeMillis() + 2000;
+            while (store.getGameFromID(1).whiteUsername() == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals("a", store.getGameFromID(1).whiteUsername());
+            assertTrue(cache.isCached(1));
+        }
+    }
+
+    @Test
+    void joinGameSeesPendingMoves() throws Exception {
+        var store = new CountingDataAccess();
+        store.addAuth(new AuthData("black", "token"));
+        store.addGame(game("white"));
+        try (var cache = new GameCacheDataAccess(store, 60_000)) {
+            cache.open(1);
+            var moved = new GameData(1, "white", null, "renamed", new ChessGame());
+            cache.addGame(moved);
+            cache.joinGame(1, "BLACK", "token");
+            GameData joined = cache.getGameFromID(1);
+            assertEquals("black", joined.blackUsername());
+            assertEquals("renamed", joined.gameName());
+        }
+    }
+
+    @Test
+    void concurrentWritesLeaveCacheAndStoreAgreeing() throws Exception {
+        var store = new MemoryDataAccess();
+        store.addGame(game(null));
+        try (var cache = new GameCacheDataAccess(store, 60_000)) {
+            cache.open(1);
+            Runnable writer = () -> {
+                for (int i = 0; i < 2000; i++) {
+                    try {
+                        cache.addGame(game(Thread.currentThread().getName() + i));
+                    } catch (DataAccessException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                }
+            };
+            Thread a = new Thread(writer, "a");
+            Thread b = new Thread(writer, "b");
+            a.start();
+            b.start();
+            a.join();
+            b.join();
+            GameData cached = cache.getGameFromID(1);
+            cache.release(1);
+            assertEquals(cached.whiteUsername(), store.getGameFromID(1).whiteUsername());
+
+            // once released, writes go straight to the store
+            cache.addGame(game("after"));
+            assertEquals("after", store.getGameFromID(1).whiteUsername());
+        }
+    }
+
+    @Test
+    void failedReleaseKeepsNewerVersion() throws Exception {
+        var store = new FailingOnceDataAccess();
+        store.failed = true;
+        store.addGame(game(null));
+        store.failed = false;
+        try (var cache = new GameCacheDataAccess(store, 60_000)) {
+            cache.open(1);
+            cache.addGame(game("a"));
+            assertThrows(DataAccessException.class, () -> cache.release(1));
+            assertNull(store.getGameFromID(1).whiteUsername());
+
+            // reopening picks up the unwritten version rather than the stored row
+            cache.open(1);
+            assertEquals("a", cache.getGameFromID(1).whiteUsername());
+            cache.addGame(game("b"));
+            cache.release(1);
+            assertEquals("b", store.getGameFromID(1).whiteUsername());
+        }
+    }
+
+    @Test
+    void uncachedWriteDropsOlderPendingVersion() throws Exception {
+        var store = new FailingOnceDataAccess();
+        store.failed = true;
+        store.addGame(game(null));
+        store.failed = false;
+        try (var cache = new GameCacheDataAccess(store, 60_000)) {
+            cache.open(1);
+            cache.addGame(game("a"));
+            assertThrows(DataAccessException.class, () -> cache.release(1));
+
+            cache.addGame(game("b"));
+            cache.flush();
+            assertEquals("b", store.getGameFromID(1).whiteUsername());
+        }
+    }
+
+    @Test
+    void readersGetTheirOwnCopy() throws Exception {
+        var store = new MemoryDataAccess();
+        var finished = new ChessGame();
+        finished.setGameFinished(true);
+        store.addGame(new GameData(1, "white", "black", "game", finished));
+        try (var cache = new GameCacheDataAccess(store, 60_000)) {
+            cache.open(1);
+            ChessGame first = cache.getGameFromID(1).game();
+            ChessGame second = cache.getGameFromID(1).game();
+            assertNotSame(first, second);
+            assertNotSame(first.getBoard(), second.getBoard());
+            assertEquals(first.getBoard(), second.getBoard());
+            assertTrue(second.checkGameFinished());
+            assertNotSame(first, cache.listGames().games().get(0).game());
+        }
+    }
+}
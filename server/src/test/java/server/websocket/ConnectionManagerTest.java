@@ -0,0 +1,68 @@
+package server.websocket;
+
+import dataaccess.DataAccessException;
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionManagerTest {
+
+    private static Session session() {
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> null;
+                });
+    }
+
+    @Test
+    void dropsGameLockWithLastSession() throws Exception {
+        List<String> events = new ArrayList<>();
+        var connections = new ConnectionManager(new ConnectionManager.GameListener() {
+            @Override
+            public void gameOpened(Integer gameID) {
+                events.add("opened " + gameID);
+            }
+
+            @Override
+            public void gameClosed(Integer gameID) {
+                events.add("closed " + gameID);
+            }
+        });
+        Session a = session();
+        Session b = session();
+        connections.add(1, a);
+        connections.add(1, b);
+        connections.add(2, a);
+        assertEquals(2, connections.lockCount());
+
+        connections.remove(1, a);
+        assertEquals(2, connections.lockCount());
+        connections.removeSession(b);
+        connections.removeSession(a);
+        assertEquals(0, connections.lockCount());
+        assertEquals(List.of("opened 1", "opened 2", "closed 1", "closed 2"), events);
+    }
+
+    @Test
+    void dropsGameLockWhenOpeningFails() {
+        var connections = new ConnectionManager(new ConnectionManager.GameListener() {
+            @Override
+            public void gameOpened(Integer gameID) throws DataAccessException {
+                throw new DataAccessException("no such game");
+            }
+
+            @Override
+            public void gameClosed(Integer gameID) {
+            }
+        });
+        assertThrows(DataAccessException.class, () -> connections.add(1, session()));
+        assertEquals(0, connections.lockCount());
+    }
+}
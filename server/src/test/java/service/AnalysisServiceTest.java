@@ -0,0 +1,64 @@
+package service;
+
+import chess.Fen;
+import dataaccess.DataAccess;
+import dataaccess.MemoryDataAccess;
+import datamodel.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisServiceTest {
+
+    private DataAccess setup() throws Exception {
+        DataAccess db = new MemoryDataAccess();
+        db.addAuth(new AuthData("user", "token"));
+        db.addGame(new GameData(1, null, null, "mate", Fen.load("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1")));
+        db.addGame(new GameData(2, null, null, "opening", Fen.load(Fen.START)));
+        return db;
+    }
+
+    @Test
+    void analyzePositive() throws Exception {
+        var analysisService = new AnalysisService(setup(), 1, 4, 2);
+        AnalysisData analysis = analysisService.analyze("token", 1, 4, 1000L).get(5, TimeUnit.SECONDS);
+        assertEquals("a1a8", analysis.bestMove());
+        assertEquals("a1a8", analysis.line().get(0));
+        analysisService.shutdown();
+    }
+
+    @Test
+    void analyzeWithSearchThreads() throws Exception {
+        var analysisService = new AnalysisService(setup(), 1, 3, 4, 2, null, null);
+        AnalysisData analysis = analysisService.analyze("token", 1, 4, 1000L).get(5, TimeUnit.SECONDS);
+        assertEquals("a1a8", analysis.bestMove());
+        analysisService.shutdown();
+    }
+
+    @Test
+    void analyzeNegative() throws Exception {
+        var analysisService = new AnalysisService(setup(), 1, 4, 2);
+        Exception exception = assertThrows(Exception.class, () -> analysisService.analyze("bad", 1, 4, 1000L));
+        assertEquals("unauthorized", exception.getMessage());
+        exception = assertThrows(Exception.class, () -> analysisService.analyze("token", 99, 4, 1000L));
+        assertEquals("Bad Request", exception.getMessage());
+        analysisService.shutdown();
+    }
+
+    @Test
+    void perUserLimitAndCancel() throws Exception {
+        var analysisService = new AnalysisService(setup(), 1, 4, 1);
+        var running = analysisService.analyze("token", 2, null, AnalysisService.MAX_MILLIS);
+        Exception exception = assertThrows(Exception.class, () -> analysisService.analyze("token", 2, 2, 100L));
+        assertEquals("too many analysis requests", exception.getMessage());
+
+        running.cancel(true);
+        assertThrows(CancellationException.class, running::join);
+        // the slot is free again once the cancelled search is released
+        assertEquals("a1a8", analysisService.analyze("token", 1, 4, 1000L).get(5, TimeUnit.SECONDS).bestMove());
+        analysisService.shutdown();
+    }
+}
@@ -0,0 +1,52 @@
+package service;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.engine.BatchAnalyzer;
+import chess.engine.SearchLimits;
+import dataaccess.DataAccess;
+import dataaccess.MemoryDataAccess;
+import datamodel.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NightlyAnalysisServiceTest {
+
+    private static ChessGame finished(String fen) {
+        ChessGame game = Fen.load(fen);
+        game.setGameFinished(true);
+        return game;
+    }
+
+    @Test
+    void analyzesEachResignedGameOnce() throws Exception {
+        DataAccess db = new MemoryDataAccess();
+        db.addAuth(new AuthData("user", "token"));
+        db.addGame(new GameData(1, "white", "black", "resigned", finished("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1")));
+        db.addGame(new GameData(2, "white", "black", "playing", new ChessGame()));
+        db.addGame(new GameData(3, "white", "black", "mated", finished("7k/6Q1/6K1/8/8/8/8/8 b")));
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        var nightly = new NightlyAnalysisService(db, new BatchAnalyzer(pool, SearchLimits.depth(3), 1));
+        List<AnalysisData> analyses = nightly.analyzeFinishedGames();
+        assertEquals(1, analyses.size());
+        assertEquals("a1a8", analyses.get(0).bestMove());
+        assertEquals(analyses.get(0), nightly.latest(1));
+        assertNull(nightly.latest(2));
+        assertNull(nightly.latest(3));
+        assertTrue(nightly.analyzeFinishedGames().isEmpty());
+
+        // the analysis route answers finished games from the nightly result
+        var analysisService = new AnalysisService(db, 1, 4, 2);
+        analysisService.setNightlyResults(nightly);
+        assertSame(analyses.get(0), analysisService.analyze("token", 1, 4, 1000L).get(5, TimeUnit.SECONDS));
+        analysisService.shutdown();
+        nightly.shutdown();
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,163 @@
+package chess;
+
+/**
+ * Static helpers and precomputed attack tables for the bitboard board representation.
+ * <p>
+ * Squares are numbered 0-63, with 0 being row 1 column 1 (a1) and 63 being row 8
+ * column 8 (h8), so bit {@code (row-1)*8 + (col-1)} of a bitboard marks that square.
+ */
+public final class Bitboards {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    static final long[] KNIGHT_ATTACKS = new long[64];
+    static final long[] KING_ATTACKS = new long[64];
+    // indexed by team color ordinal, then square
+    static final long[][] PAWN_ATTACKS = new long[2][64];
+    // squares strictly between two squares on a shared rank, file or diagonal, else empty
+    static final long[][] BETWEEN = new long[64][64];
+    // the whole rank, file or diagonal through two squares, else empty
+    static final long[][] LINE = new long[64][64];
+
+    static {
+        int[][] knightSteps = {{1,2},{1,-2},{-1,2},{-1,-2},{2,1},{2,-1},{-2,1},{-2,-1}};
+        int[][] kingSteps = {{1,1},{1,-1},{-1,-1},{-1,1},{1,0},{-1,0},{0,1},{0,-1}};
+        for (int sq = 0; sq < 64; sq++) {
+            KNIGHT_ATTACKS[sq] = stepAttacks(sq, knightSteps);
+            KING_ATTACKS[sq] = stepAttacks(sq, kingSteps);
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][sq] = stepAttacks(sq, new int[][]{{1,1},{1,-1}});
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][sq] = stepAttacks(sq, new int[][]{{-1,1},{-1,-1}});
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            for (int[] step : kingSteps) {
+                long line = rayAttacks(sq, 0L, step[0], step[1]) | rayAttacks(sq, 0L, -step[0], -step[1]) | bit(sq);
+                long between = 0L;
+                int row = row(sq) + step[0];
+                int col = column(sq) + step[1];
+                while (onBoard(row, col)) {
+                    int target = square(row, col);
+                    BETWEEN[sq][target] = between;
+                    LINE[sq][target] = line;
+                    between |= bit(target);
+                    row += step[0];
+                    col += step[1];
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    /**
+     * @return the square index for a 1-indexed row and column
+     */
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    /**
+     * @return the square index of a position
+     */
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return the 1-indexed row of a square
+     */
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the 1-indexed column of a square
+     */
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static boolean onBoard(int row, int col) {
+        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    }
+
+    /**
+     * @return the squares strictly between two squares on a shared line, or 0 if they do not share one
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * @return every square of the rank, file or diagonal through both squares, or 0 if there is none
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given color standing on square attacks diagonally
+     */
+    public static long pawnAttacks(ChessGame.TeamColor color, int square) {
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        return SlidingAttacks.bishopAttacks(square, occupied);
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        return SlidingAttacks.rookAttacks(square, occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return bishopAttacks(square, occupied) | rookAttacks(square, occupied);
+    }
+
+    /**
+     * Walks one direction from a square, stopping on (and including) the first occupied square.
+     * Only used to build lookup tables.
+     */
+    static long rayAttacks(int square, long occupied, int rowStep, int colStep) {
+        long attacks = 0L;
+        int row = row(square) + rowStep;
+        int col = column(square) + colStep;
+        while (onBoard(row, col)) {
+            long target = bit(square(row, col));
+            attacks |= target;
+            if ((occupied & target) != 0) {
+                break;
+            }
+            row += rowStep;
+            col += colStep;
+        }
+        return attacks;
+    }
+
+    private static long stepAttacks(int square, int[][] steps) {
+        long attacks = 0L;
+        for (int[] step : steps) {
+            int row = row(square) + step[0];
+            int col = column(square) + step[1];
+            if (onBoard(row, col)) {
+                attacks |= bit(square(row, col));
+            }
+        }
+        return attacks;
+    }
+}
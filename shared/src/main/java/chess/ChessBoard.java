@@ -1,7 +1,6 @@
 package chess;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -13,6 +12,26 @@ public class ChessBoard {
 
     ChessPiece[][] squares = new ChessPiece[8][8];
 
+    // bitboards mirror squares; they are transient and rebuilt from squares on first use,
+    // so boards deserialized by Gson pick them up lazily
+    private transient long[] pieceBoards;
+    private transient long[] colorBoards;
+    private transient long zobristKey;
+    // Zobrist key of the pawns alone
+    private transient long pawnKey;
+    // PieceSquareTables sums over every piece (white minus black) and the game phase
+    private transient int midgameScore;
+    private transient int endgameScore;
+    private transient int phase;
+    // square of each team's king by color ordinal, or -1 when it has none
+    private transient int[] kingSquares;
+
+    // undo records for makeMove/unmakeMove: from | to << 6, the piece that moved, and what it captured
+    private transient int[] undoSquares;
+    private transient ChessPiece[] undoMoved;
+    private transient ChessPiece[] undoCaptured;
+    private transient int undoCount;
+
     public ChessBoard() {
 
     }
@@ -24,7 +43,11 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow()-1][position.getColumn()-1] = piece;
+        int square = Bitboards.square(position);
+        clearSquare(square);
+        if (piece != null) {
+            putPiece(square, piece);
+        }
     }
 
     /**
@@ -38,13 +61,335 @@ public class ChessBoard {
         return squares[position.getRow()-1][position.getColumn()-1];
     }
 
+    /**
+     * Gets a chess piece on the chessboard by square index
+     *
+     * @param square square index, see {@link Bitboards}
+     * @return Either the piece on the square, or null if it is empty
+     */
+    public ChessPiece getPiece(int square) {
+        return squares[square >>> 3][square & 7];
+    }
+
     /**
      * Empties a square on the chess board
      *
      * Used to make a space vacant after a move is made
      */
     public void emptyPiece(ChessPosition position) {
-        squares[position.getRow()-1][position.getColumn()-1] = null;
+        clearSquare(Bitboards.square(position));
+    }
+
+    /**
+     * Moves a piece in place without checking legality, recording what is needed
+     * to take the move back with {@link #unmakeMove()}
+     *
+     * @param move the move to make; the start square must hold a piece
+     */
+    public void makeMove(ChessMove move) {
+        makeMove(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece());
+    }
+
+    /**
+     * Moves a piece in place without checking legality
+     *
+     * @param move a {@link PackedMove}
+     */
+    public void makeMove(int move) {
+        makeMove(PackedMove.from(move), PackedMove.to(move), PackedMove.promotion(move));
+    }
+
+    /**
+     * Moves a piece in place without checking legality
+     *
+     * @param from      square index of the piece to move
+     * @param to        square index to move it to
+     * @param promotion type to promote to, or null
+     */
+    public void makeMove(int from, int to, ChessPiece.PieceType promotion) {
+        ChessPiece moved = getPiece(from);
+        ChessPiece captured = getPiece(to);
+        pushUndo(from, to, moved, captured);
+
+        clearSquare(from);
+        clearSquare(to);
+        putPiece(to, promotion == null ? moved : ChessPiece.of(moved.getTeamColor(), promotion));
+    }
+
+    /**
+     * Takes back the most recent {@link #makeMove} on this board
+     */
+    public void unmakeMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("no move to unmake");
+        }
+        undoCount--;
+        int from = undoSquares[undoCount] & 63;
+        int to = undoSquares[undoCount] >>> 6;
+        ChessPiece moved = undoMoved[undoCount];
+        ChessPiece captured = undoCaptured[undoCount];
+        undoMoved[undoCount] = null;
+        undoCaptured[undoCount] = null;
+
+        clearSquare(to);
+        putPiece(from, moved);
+        if (captured != null) {
+            putPiece(to, captured);
+        }
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on this board, kept up to date as pieces
+     * are added, removed and moved
+     */
+    public long getZobristKey() {
+        bitboards();
+        return zobristKey;
+    }
+
+    /**
+     * @return the Zobrist key of the pawns on this board, ignoring every other piece
+     */
+    public long getPawnKey() {
+        bitboards();
+        return pawnKey;
+    }
+
+    /**
+     * @return material plus piece-square value of every piece on the board, tapered by
+     * game phase, in centipawns from white's point of view
+     */
+    public int getPieceSquareScore() {
+        bitboards();
+        return PieceSquareTables.taper(midgameScore, endgameScore, phase);
+    }
+
+    /**
+     * @return bitboard of every piece of the given color and type
+     */
+    public long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return bitboards()[pieceIndex(color, type)];
+    }
+
+    /**
+     * @return bitboard of every square holding a piece of the given color
+     */
+    public long getOccupancy(ChessGame.TeamColor color) {
+        bitboards();
+        return colorBoards[color.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long getOccupied() {
+        bitboards();
+        return colorBoards[0] | colorBoards[1];
+    }
+
+    /**
+     * @return the square index of a team's king, or -1 if it has none
+     */
+    public int getKingSquare(ChessGame.TeamColor color) {
+        bitboards();
+        return kingSquares[color.ordinal()];
+    }
+
+    /**
+     * @return the position of a team's king, or null if it has none
+     */
+    public ChessPosition getKingPosition(ChessGame.TeamColor color) {
+        int square = getKingSquare(color);
+        return square < 0 ? null : ChessPosition.ofSquare(square);
+    }
+
+    /**
+     * Determines if any piece of a team attacks a square
+     *
+     * @param position the square to test
+     * @param color    the attacking team
+     * @return True if the square is attacked
+     */
+    public boolean isSquareAttacked(ChessPosition position, ChessGame.TeamColor color) {
+        return isSquareAttacked(Bitboards.square(position), color);
+    }
+
+    /**
+     * Determines if any piece of a team attacks a square, looking outward from the
+     * square (knight jumps, pawn diagonals, king steps, then slider rays) and stopping
+     * at the first attacker found
+     *
+     * @param square the square index to test
+     * @param color  the attacking team
+     * @return True if the square is attacked
+     */
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor color) {
+        long[] boards = bitboards();
+        int base = pieceIndex(color, ChessPiece.PieceType.KING);
+        if ((Bitboards.knightAttacks(square) & boards[base + ChessPiece.PieceType.KNIGHT.ordinal()]) != 0) {
+            return true;
+        }
+        if ((Bitboards.pawnAttacks(ChessPiece.opponent(color), square)
+                & boards[base + ChessPiece.PieceType.PAWN.ordinal()]) != 0) {
+            return true;
+        }
+        if ((Bitboards.kingAttacks(square) & boards[base]) != 0) {
+            return true;
+        }
+
+        long queens = boards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        long rooks = boards[base + ChessPiece.PieceType.ROOK.ordinal()] | queens;
+        long bishops = boards[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens;
+        long occupied = colorBoards[0] | colorBoards[1];
+        if (rooks != 0 && (Bitboards.rookAttacks(square, occupied) & rooks) != 0) {
+            return true;
+        }
+        return bishops != 0 && (Bitboards.bishopAttacks(square, occupied) & bishops) != 0;
+    }
+
+    /**
+     * Finds the pieces of one team that attack a square
+     *
+     * @param square   the square to test
+     * @param color    the attacking team
+     * @param occupied occupancy to use for slider blocking, normally {@link #getOccupied()}
+     * @return bitboard of the attacking pieces
+     */
+    public long attackersTo(int square, ChessGame.TeamColor color, long occupied) {
+        long[] boards = bitboards();
+        int base = pieceIndex(color, ChessPiece.PieceType.KING);
+        long queens = boards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        long rooks = boards[base + ChessPiece.PieceType.ROOK.ordinal()] | queens;
+        long bishops = boards[base + ChessPiece.PieceType.BISHOP.ordinal()] | queens;
+
+        // a pawn of the defending color on this square would attack exactly the squares
+        // an attacking pawn could attack it from
+        return (Bitboards.pawnAttacks(ChessPiece.opponent(color), square) & boards[base + ChessPiece.PieceType.PAWN.ordinal()])
+                | (Bitboards.knightAttacks(square) & boards[base + ChessPiece.PieceType.KNIGHT.ordinal()])
+                | (Bitboards.kingAttacks(square) & boards[base])
+                | (Bitboards.bishopAttacks(square, occupied) & bishops)
+                | (Bitboards.rookAttacks(square, occupied) & rooks);
+    }
+
+    static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    private long[] bitboards() {
+        long[] boards = pieceBoards;
+        return boards != null ? boards : rebuild();
+    }
+
+    /**
+     * Rebuilds everything derived from squares. It is built in locals and pieceBoards is
+     * assigned last, so a reader never finds pieceBoards set over half-built state.
+     */
+    private long[] rebuild() {
+        long[] boards = new long[12];
+        long[] colors = new long[2];
+        long key = 0L;
+        long pawns = 0L;
+        int midgame = 0;
+        int endgame = 0;
+        int weight = 0;
+        int[] kings = {-1, -1};
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = getPiece(square);
+            if (piece == null) {
+                continue;
+            }
+            int index = pieceIndex(piece.getTeamColor(), piece.getPieceType());
+            long bit = Bitboards.bit(square);
+            boards[index] |= bit;
+            colors[piece.getTeamColor().ordinal()] |= bit;
+            key ^= Zobrist.pieceKey(index, square);
+            midgame += PieceSquareTables.midgame(index, square);
+            endgame += PieceSquareTables.endgame(index, square);
+            weight += PieceSquareTables.phaseWeight(index);
+            if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+                pawns ^= Zobrist.pieceKey(index, square);
+            }
+            // the lowest square, as updateKingSquare picks when there are several
+            else if (piece.getPieceType() == ChessPiece.PieceType.KING && kings[piece.getTeamColor().ordinal()] < 0) {
+                kings[piece.getTeamColor().ordinal()] = square;
+            }
+        }
+        colorBoards = colors;
+        zobristKey = key;
+        pawnKey = pawns;
+        midgameScore = midgame;
+        endgameScore = endgame;
+        phase = weight;
+        kingSquares = kings;
+        pieceBoards = boards;
+        return boards;
+    }
+
+    private void pushUndo(int from, int to, ChessPiece moved, ChessPiece captured) {
+        if (undoSquares == null) {
+            undoSquares = new int[64];
+            undoMoved = new ChessPiece[64];
+            undoCaptured = new ChessPiece[64];
+        }
+        else if (undoCount == undoSquares.length) {
+            undoSquares = Arrays.copyOf(undoSquares, undoCount * 2);
+            undoMoved = Arrays.copyOf(undoMoved, undoCount * 2);
+            undoCaptured = Arrays.copyOf(undoCaptured, undoCount * 2);
+        }
+        undoSquares[undoCount] = from | to << 6;
+        undoMoved[undoCount] = moved;
+        undoCaptured[undoCount] = captured;
+        undoCount++;
+    }
+
+    private void putPiece(int square, ChessPiece piece) {
+        squares[square >>> 3][square & 7] = piece;
+        setBits(square, piece);
+    }
+
+    private void clearSquare(int square) {
+        bitboards();
+        ChessPiece piece = getPiece(square);
+        if (piece != null) {
+            int index = pieceIndex(piece.getTeamColor(), piece.getPieceType());
+            long mask = ~Bitboards.bit(square);
+            pieceBoards[index] &= mask;
+            colorBoards[piece.getTeamColor().ordinal()] &= mask;
+            zobristKey ^= Zobrist.pieceKey(index, square);
+            midgameScore -= PieceSquareTables.midgame(index, square);
+            endgameScore -= PieceSquareTables.endgame(index, square);
+            phase -= PieceSquareTables.phaseWeight(index);
+            if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+                pawnKey ^= Zobrist.pieceKey(index, square);
+            }
+            squares[square >>> 3][square & 7] = null;
+            if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+                updateKingSquare(piece.getTeamColor());
+            }
+        }
+    }
+
+    private void setBits(int square, ChessPiece piece) {
+        int index = pieceIndex(piece.getTeamColor(), piece.getPieceType());
+        long bit = Bitboards.bit(square);
+        pieceBoards[index] |= bit;
+        colorBoards[piece.getTeamColor().ordinal()] |= bit;
+        zobristKey ^= Zobrist.pieceKey(index, square);
+        midgameScore += PieceSquareTables.midgame(index, square);
+        endgameScore += PieceSquareTables.endgame(index, square);
+        phase += PieceSquareTables.phaseWeight(index);
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            pawnKey ^= Zobrist.pieceKey(index, square);
+        }
+        else if (piece.getPieceType() == ChessPiece.PieceType.KING) {
+            updateKingSquare(piece.getTeamColor());
+        }
+    }
+
+    private void updateKingSquare(ChessGame.TeamColor color) {
+        long kings = pieceBoards[pieceIndex(color, ChessPiece.PieceType.KING)];
+        kingSquares[color.ordinal()] = kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
     }
 
     /**
@@ -52,19 +397,22 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
+        squares = new ChessPiece[8][8];
+        pieceBoards = null;
+        undoCount = 0;
         for (int r = 1 ; r <= 8 ; r++){
             for (int c = 1 ; c <= 8 ; c++){
                 ChessPiece.PieceType pieceToPut = null;
                 //pawns
                 if (r == 2) {
-                    addPiece(new ChessPosition(r,c), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+                    addPiece(ChessPosition.of(r,c), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
                 }
                 else if (r == 7) {
-                    addPiece(new ChessPosition(r,c), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+                    addPiece(ChessPosition.of(r,c), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
                 }
                 //empty rows
                 else if (r == 3 || r == 4 || r == 5) {
-                    addPiece(new ChessPosition(r,c), null);
+                    addPiece(ChessPosition.of(r,c), null);
                 }
                 //back rows
                 else if (r == 1 || r == 8) {
@@ -76,10 +424,10 @@ public class ChessBoard {
                         case 5    -> pieceToPut = ChessPiece.PieceType.KING;
                     }
                     if (r == 1){
-                        addPiece(new ChessPosition(r,c), new ChessPiece(ChessGame.TeamColor.WHITE, pieceToPut));
+                        addPiece(ChessPosition.of(r,c), ChessPiece.of(ChessGame.TeamColor.WHITE, pieceToPut));
                     }
                     else {
-                        addPiece(new ChessPosition(r,c), new ChessPiece(ChessGame.TeamColor.BLACK, pieceToPut));
+                        addPiece(ChessPosition.of(r,c), ChessPiece.of(ChessGame.TeamColor.BLACK, pieceToPut));
                     }
                 }
             }
@@ -89,18 +437,18 @@ public class ChessBoard {
     public ChessBoard copy() {
         ChessBoard copy = new ChessBoard();
 
+        // pieces are immutable, so rows can share them
         for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col ++) {
-                ChessPiece piece = this.squares[row][col];
-                if (piece != null) {
-                    ChessPiece copiedPiece = piece.copy();
-                    copy.squares[row][col] = copiedPiece;
-                }
-                else {
-                    copy.squares[row][col] = null;
-                }
-            }
+            copy.squares[row] = this.squares[row].clone();
         }
+        copy.pieceBoards = bitboards().clone();
+        copy.colorBoards = this.colorBoards.clone();
+        copy.zobristKey = this.zobristKey;
+        copy.pawnKey = this.pawnKey;
+        copy.midgameScore = this.midgameScore;
+        copy.endgameScore = this.endgameScore;
+        copy.phase = this.phase;
+        copy.kingSquares = this.kingSquares.clone();
 
         return copy;
     }
@@ -124,11 +472,12 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(squares, that.squares);
+        // different keys always mean different boards, so only compare bitboards on a match
+        return getZobristKey() == that.getZobristKey() && Arrays.equals(pieceBoards, that.pieceBoards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(getZobristKey());
     }
 }
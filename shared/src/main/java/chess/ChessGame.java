@@ -2,6 +2,7 @@ package chess;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -15,11 +16,29 @@ public class ChessGame {
     private TeamColor teamTurn = TeamColor.WHITE;
     private boolean finished = false;
     public ChessBoard board = new ChessBoard();
+    private transient int[] moveBuffer;
+    // status per team color, valid while the board and its key are unchanged
+    private transient GameStatus[] statusCache;
+    private transient long[] statusKeys;
+    private transient ChessBoard statusBoard;
 
     public ChessGame() {
         board.resetBoard();
     }
 
+    private ChessGame(ChessBoard board, TeamColor teamTurn) {
+        this.board = board;
+        this.teamTurn = teamTurn;
+    }
+
+    /**
+     * Creates a game around an already filled in board, which it takes ownership of,
+     * without setting up the starting position first.
+     */
+    public static ChessGame of(ChessBoard board, TeamColor teamTurn) {
+        return new ChessGame(board, teamTurn);
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -63,7 +82,15 @@ public class ChessGame {
 
     @Override
     public int hashCode() {
-        return Objects.hash(teamTurn, board);
+        return Long.hashCode(getPositionKey());
+    }
+
+    /**
+     * @return a 64-bit Zobrist key identifying the pieces on the board and the side to move
+     */
+    public long getPositionKey() {
+        long key = this.board.getZobristKey();
+        return this.teamTurn == TeamColor.BLACK ? key ^ Zobrist.BLACK_TO_MOVE : key;
     }
 
     /**
@@ -82,26 +109,73 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        ArrayList<ChessMove> moves = new ArrayList<ChessMove>();
-        ArrayList<ChessMove> validMoves = new ArrayList<ChessMove>();
         ChessPiece piece = this.board.getPiece(startPosition);
 
         if (piece == null) {
             return null;
         }
 
-        moves.addAll(piece.pieceMoves(this.board,startPosition));
+        // generate into the primitive buffer and only build ChessMoves for the moves we return
+        int[] buffer = moveBuffer();
+        int count = validMoves(Bitboards.square(startPosition), buffer, 0);
+        ArrayList<ChessMove> validMoves = new ArrayList<ChessMove>(count);
+        for (int i = 0; i < count; i++) {
+            validMoves.add(PackedMove.toChessMove(buffer[i]));
+        }
 
-        for (ChessMove move : moves) {
-            ChessGame testGame = copyGame();
-            testGame.forceMove(move);
-            if (!testGame.isInCheck(piece.getTeamColor())) {
-                validMoves.add(move);
-            }
+        return validMoves;
+    }
+
+    /**
+     * Writes the valid moves for the piece on a square into a buffer as {@link PackedMove} ints
+     *
+     * @param square square index of the piece, see {@link Bitboards}
+     * @param buffer buffer to append moves to
+     * @param count  number of moves already in the buffer
+     * @return the new number of moves in the buffer
+     */
+    public int validMoves(int square, int[] buffer, int count) {
+        ChessPiece piece = this.board.getPiece(square);
+        if (piece == null) {
+            return count;
+        }
+        if (hasOneKing(piece.getTeamColor())) {
+            return MoveGenerator.legalMoves(this.board, piece.getTeamColor(), Bitboards.bit(square), buffer, count);
+        }
+        int end = piece.pieceMoves(this.board, square, buffer, count);
+        return keepLegal(piece.getTeamColor(), buffer, count, end);
+    }
 
+    /**
+     * Writes every valid move for a team into a buffer as {@link PackedMove} ints
+     *
+     * @param buffer buffer of at least {@link PackedMove#MAX_MOVES} entries
+     * @return the number of moves written
+     */
+    public int validMoves(TeamColor teamColor, int[] buffer) {
+        if (hasOneKing(teamColor)) {
+            return MoveGenerator.legalMoves(this.board, teamColor, -1L, buffer, 0);
         }
+        return keepLegal(teamColor, buffer, 0, pseudoLegalMoves(teamColor, buffer));
+    }
 
-        return validMoves;
+    /**
+     * Writes every move for a team into a buffer, including ones that leave its king in check
+     *
+     * @param buffer buffer of at least {@link PackedMove#MAX_MOVES} entries
+     * @return the number of moves written
+     */
+    public int pseudoLegalMoves(TeamColor teamColor, int[] buffer) {
+        int count = 0;
+        long pieces = this.board.getOccupancy(teamColor);
+
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            count = this.board.getPiece(square).pieceMoves(this.board, square, buffer, count);
+        }
+
+        return count;
     }
 
     /**
@@ -123,21 +197,19 @@ public class ChessGame {
         }
 
         // if a move is not in the games of moves, throw exception
-        ArrayList<ChessMove> valid = new ArrayList<ChessMove>();
-        valid.addAll(validMoves(move.getStartPosition()));
-
-        if (!(valid.contains(move))) {
-            throw new InvalidMoveException();
+        int[] buffer = moveBuffer();
+        int count = validMoves(Bitboards.square(move.getStartPosition()), buffer, 0);
+        int packed = PackedMove.of(move);
+        boolean found = false;
+        for (int i = 0; i < count && !found; i++) {
+            found = PackedMove.sameMove(buffer[i], packed);
         }
 
-        if (move.getPromotionPiece() != null) {
-            piece = new ChessPiece(piece.getTeamColor(), move.getPromotionPiece());
+        if (!found) {
+            throw new InvalidMoveException();
         }
 
-        board.emptyPiece(move.getStartPosition());
-        board.addPiece(move.getEndPosition(), piece);
-
-        this.teamTurn = this.teamTurn == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        forceMove(move);
     }
 
     /**
@@ -147,21 +219,29 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        // find king of given color and note position
-        // while we go, add all enemy's moves to a games
-        // check games for an endPosition that matches the king's position
-        // if so, return true. else, false.
-        ChessPiece[][] squares = this.board.squares;
-        ChessPiece piece;
-        ArrayList<ChessMove> enemyMoves = new ArrayList<>();
-        enemyMoves.addAll(getEnemyMoves(teamColor));
-
-        for (ChessMove move : enemyMoves) {
-            if (move.getEndPosition().equals(findKing(teamColor))) {
+        GameStatus cached = cachedStatus(teamColor);
+        if (cached != null) {
+            return cached.inCheck();
+        }
+
+        // probe outward from the king for the first enemy piece that attacks it
+        int king = this.board.getKingSquare(teamColor);
+        if (king < 0) {
+            return false;
+        }
+        TeamColor enemy = ChessPiece.opponent(teamColor);
+        if (this.board.isSquareAttacked(king, enemy)) {
+            return true;
+        }
+
+        // hand-built boards can hold more than one king; any of them being attacked counts
+        long otherKings = this.board.getPieces(teamColor, ChessPiece.PieceType.KING) & ~Bitboards.bit(king);
+        while (otherKings != 0) {
+            if (this.board.isSquareAttacked(Long.numberOfTrailingZeros(otherKings), enemy)) {
                 return true;
             }
+            otherKings &= otherKings - 1;
         }
-
         return false;
     }
 
@@ -172,11 +252,7 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        // must start in check
-        if (!(isInCheck(teamColor))) {
-            return false;
-        }
-        if (getTeamMoves(teamColor).size() == 0) {
+        if (getStatus(teamColor).checkmate()) {
             setGameFinished(true);
             return true;
         }
@@ -194,11 +270,7 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        // must not be in check
-        if (isInCheck(teamColor)) {
-            return false;
-        }
-        if (getTeamMoves(teamColor).size() == 0) {
+        if (getStatus(teamColor).stalemate()) {
             setGameFinished(true);
             return true;
         }
@@ -207,6 +279,33 @@ public class ChessGame {
         }
     }
 
+    /**
+     * Gets a team's check state and valid moves in the current position. The result is
+     * computed once and reused until the board changes, so asking about check, checkmate
+     * and stalemate for both teams after a move generates moves at most once per team.
+     *
+     * @param teamColor which team to get the status of
+     * @return the team's status in the current position
+     */
+    public GameStatus getStatus(TeamColor teamColor) {
+        GameStatus status = cachedStatus(teamColor);
+        if (status != null) {
+            return status;
+        }
+
+        int[] buffer = moveBuffer();
+        int count = validMoves(teamColor, buffer);
+        ArrayList<ChessMove> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(PackedMove.toChessMove(buffer[i]));
+        }
+        status = new GameStatus(teamColor, isInCheck(teamColor), List.copyOf(moves));
+
+        statusCache[teamColor.ordinal()] = status;
+        statusKeys[teamColor.ordinal()] = this.board.getZobristKey();
+        return status;
+    }
+
     /**
      * Sets this game's chessboard with a given board
      *
@@ -225,81 +324,79 @@ public class ChessGame {
         return this.board;
     }
 
-    /**
-     * finds the location of the king of a given color for use in other functions
-     *
-     * @return the king's position
-     */
-    private ChessPosition findKing(TeamColor teamColor) {
-        ChessPiece[][] squares = this.board.squares;
-        ChessPiece piece;
-        ChessPosition king = null;
-
-        for (int row = 0; row < 8; row++){
-            for (int col = 0; col < 8; col++){
-                if (squares[row][col] != null) {
-                    piece = squares[row][col];
-                    if (piece.getTeamColor() == teamColor) {
-                        if (piece.getPieceType() == ChessPiece.PieceType.KING){
-                            king = new ChessPosition(row+1,col+1);
-                            break;
-                        }
-                    }
-                }
-            }
+    private GameStatus cachedStatus(TeamColor teamColor) {
+        if (statusCache == null || statusBoard != this.board) {
+            statusCache = new GameStatus[2];
+            statusKeys = new long[2];
+            statusBoard = this.board;
+            return null;
         }
-        return king;
-    }
-
-    private Collection<ChessMove> getEnemyMoves(TeamColor teamColor) {
-        ChessPiece[][] squares = this.board.squares;
-        ChessPiece piece;
-        ArrayList<ChessMove> enemyMoves = new ArrayList<>();
-
-        for (int row = 0; row < 8; row++){
-            for (int col = 0; col < 8; col++){
-                piece = squares[row][col];
-                if (piece != null) {
-                    if (piece.getTeamColor() != teamColor) {
-                        enemyMoves.addAll(piece.pieceMoves(this.board, new ChessPosition(row+1, col+1)));
-                    }
-                }
-            }
+        GameStatus status = statusCache[teamColor.ordinal()];
+        if (status != null && statusKeys[teamColor.ordinal()] == this.board.getZobristKey()) {
+            return status;
         }
+        return null;
+    }
 
-        return enemyMoves;
+    private boolean hasOneKing(TeamColor teamColor) {
+        return Long.bitCount(this.board.getPieces(teamColor, ChessPiece.PieceType.KING)) == 1;
     }
 
-    private Collection<ChessMove> getTeamMoves(TeamColor teamColor) {
-        ChessPiece[][] squares = this.board.squares;
-        ChessPiece piece;
-        ArrayList<ChessMove> teamMoves = new ArrayList<>();
-
-        for (int row = 0; row < 8; row++){
-            for (int col = 0; col < 8; col++){
-                piece = squares[row][col];
-                if (piece != null) {
-                    if (piece.getTeamColor() == teamColor) {
-                        teamMoves.addAll(validMoves(new ChessPosition(row+1, col+1)));
-                    }
-                }
+    private int keepLegal(TeamColor teamColor, int[] buffer, int start, int end) {
+        // boards without exactly one king can't use pins and checks, so try each move
+        // in place and take it back, compacting the legal ones to the front
+        int count = start;
+        for (int i = start; i < end; i++) {
+            this.board.makeMove(buffer[i]);
+            boolean inCheck = isInCheck(teamColor);
+            this.board.unmakeMove();
+            if (!inCheck) {
+                buffer[count++] = buffer[i];
             }
         }
+        return count;
+    }
 
-        return teamMoves;
+    private int[] moveBuffer() {
+        if (moveBuffer == null) {
+            moveBuffer = new int[PackedMove.MAX_MOVES];
+        }
+        return moveBuffer;
     }
 
     public ChessGame copyGame() {
-        ChessGame copy = new ChessGame();
-        copy.teamTurn = this.teamTurn;
-        copy.board = this.board.copy();
+        ChessGame copy = new ChessGame(this.board.copy(), this.teamTurn);
+        copy.finished = this.finished;
         return copy;
     }
 
-    private void forceMove(ChessMove move) {
-        ChessPiece piece = this.board.getPiece(move.getStartPosition());
+    /**
+     * Makes a move in place without checking that it is valid, and passes the turn.
+     * The move can be taken back with {@link #unmakeMove()}.
+     *
+     * @param move chess move to perform
+     */
+    public void forceMove(ChessMove move) {
+        board.makeMove(move);
+        this.teamTurn = ChessPiece.opponent(this.teamTurn);
+    }
+
+    /**
+     * Makes a {@link PackedMove} in place without checking that it is valid, and passes the turn
+     *
+     * @param move chess move to perform
+     */
+    public void forceMove(int move) {
+        board.makeMove(move);
+        this.teamTurn = ChessPiece.opponent(this.teamTurn);
+    }
 
-        board.emptyPiece(move.getStartPosition());
-        board.addPiece(move.getEndPosition(), piece);
+    /**
+     * Takes back the most recent move made with {@link #makeMove} or {@link #forceMove},
+     * and passes the turn back
+     */
+    public void unmakeMove() {
+        board.unmakeMove();
+        this.teamTurn = ChessPiece.opponent(this.teamTurn);
     }
 }
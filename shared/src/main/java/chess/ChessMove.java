@@ -14,6 +14,11 @@ public class ChessMove {
     private final ChessPosition endPosition;
     private final ChessPiece.PieceType promotionPiece;
 
+    // shared instances by from * 64 + to, then promotion (0 for none, else ordinal + 1);
+    // filled on first use, and since moves are immutable a racing fill is harmless
+    private static final int PROMOTION_SLOTS = ChessPiece.PieceType.values().length + 1;
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64 * PROMOTION_SLOTS];
+
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
                      ChessPiece.PieceType promotionPiece) {
         this.startPosition = startPosition;
@@ -21,6 +26,35 @@ public class ChessMove {
         this.promotionPiece = promotionPiece;
     }
 
+    /**
+     * Gets the shared move between two squares, so the move path does not allocate a
+     * new move (and two new positions) every time
+     *
+     * @param from      start square index, see {@link Bitboards}
+     * @param to        end square index
+     * @param promotion type to promote to, or null
+     * @return a move equal to one built from the same squares and promotion
+     */
+    public static ChessMove of(int from, int to, ChessPiece.PieceType promotion) {
+        int index = (from * 64 + to) * PROMOTION_SLOTS + (promotion == null ? 0 : promotion.ordinal() + 1);
+        ChessMove move = MOVES[index];
+        if (move == null) {
+            move = new ChessMove(ChessPosition.ofSquare(from), ChessPosition.ofSquare(to), promotion);
+            MOVES[index] = move;
+        }
+        return move;
+    }
+
+    /**
+     * @return the shared move equal to {@code new ChessMove(start, end, promotion)}
+     */
+    public static ChessMove of(ChessPosition start, ChessPosition end, ChessPiece.PieceType promotion) {
+        if (!Bitboards.onBoard(start.getRow(), start.getColumn()) || !Bitboards.onBoard(end.getRow(), end.getColumn())) {
+            return new ChessMove(start, end, promotion);
+        }
+        return of(Bitboards.square(start), Bitboards.square(end), promotion);
+    }
+
     /**
      * @return ChessPosition of starting location
      */
@@ -52,6 +86,9 @@ public class ChessMove {
 
     @Override
     public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
@@ -63,6 +100,7 @@ public class ChessMove {
 
     @Override
     public int hashCode() {
-        return Objects.hash(startPosition, endPosition, promotionPiece);
+        int result = 31 * Objects.hashCode(startPosition) + Objects.hashCode(endPosition);
+        return 31 * result + Objects.hashCode(promotionPiece);
     }
 }
@@ -14,12 +14,17 @@ public class ChessPiece {
 
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
-    private transient ChessBoard board;
-    private ChessPosition myPosition;
-    private int row;
-    private int col;
-    private int x;
-    private int y;
+
+    private static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK};
+    private static final ChessPiece[] SHARED = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                SHARED[ChessBoard.pieceIndex(color, type)] = new ChessPiece(color, type);
+            }
+        }
+    }
 
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         this.pieceColor = pieceColor;
@@ -79,166 +84,128 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        this.board = board;
-        this.myPosition = myPosition;
         ArrayList<ChessMove> moves = new ArrayList<>();
-
-        ChessPiece piece = board.getPiece(myPosition);
-
-        switch (piece.getPieceType()){
-            case BISHOP:
-                int bishCoords[][] = {{1,1},{1,-1},{-1,-1},{-1,1}};
-                for (int[] coord : bishCoords){
-                    int x = coord[0];
-                    int y = coord[1];
-                    moves.addAll(getBishopRookQueenMoves(board, myPosition, myPosition.getRow(), myPosition.getColumn(), x, y));
-                }
-                return moves;
-            case ROOK:
-                int rookCoords[][] = {{1,0},{-1,0},{0,1},{0,-1}};
-                for (int[] coord : rookCoords){
-                    int x = coord[0];
-                    int y = coord[1];
-                    moves.addAll(getBishopRookQueenMoves(board, myPosition, myPosition.getRow(), myPosition.getColumn(), x, y));
-                }
-                return moves;
-            case QUEEN:
-                int queenCoords[][] = {{1,1},{1,-1},{-1,-1},{-1,1},{1,0},{-1,0},{0,1},{0,-1}};
-                for (int[] coord : queenCoords){
-                    int x = coord[0];
-                    int y = coord[1];
-                    moves.addAll(getBishopRookQueenMoves(board, myPosition, myPosition.getRow(), myPosition.getColumn(), x, y));
-                }
-                return moves;
-            case KING:
-                int kingCoords[][] = {{1,1},{1,-1},{-1,-1},{-1,1},{1,0},{-1,0},{0,1},{0,-1}};
-                for (int[] coord : kingCoords){
-                    int x = coord[0];
-                    int y = coord[1];
-                    moves.addAll(getKingKnightMoves(board, myPosition, x, y));
-                }
-                return moves;
-            case KNIGHT:
-                int knightCoords[][] = {{1,2},{1,-2},{-1,2},{-1,-2},{2,1},{2,-1},{-2,1},{-2,-1}};
-                for (int[] coord : knightCoords){
-                    int x = coord[0];
-                    int y = coord[1];
-                    moves.addAll(getKingKnightMoves(board, myPosition, x, y));
-                }
-                return moves;
-            case PAWN:
-                moves.addAll(getPawnMoves(board,myPosition));
-                return moves;
-            default:
-                return null;
-        }
-    }
-
-    private Collection<ChessMove> getBishopRookQueenMoves(ChessBoard board, ChessPosition myPosition, int row, int col, int x, int y) {
-
-        ChessPosition newPosition = new ChessPosition(row+y, col+x);
-
-        ArrayList<ChessMove> moves = new ArrayList<>();
-        ChessPiece piece = board.getPiece(myPosition);
-
-        if (newPosition.getRow() >= 1 && newPosition.getRow() <= 8 && newPosition.getColumn() >= 1 && newPosition.getColumn() <= 8){
-            ChessPiece newPiece = board.getPiece(newPosition);
-            if (newPiece != null) {
-                if (newPiece.getTeamColor() != piece.getTeamColor()){
-                    moves.add(new ChessMove(myPosition,newPosition,null));
-                    return moves;
-                }
-                else {
-                    return moves;
+        int from = Bitboards.square(myPosition);
+        long targets = targets(board, from);
+
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int row = Bitboards.row(to);
+            if (type == PieceType.PAWN && (row == 8 || row == 1)) {
+                for (PieceType promotion : PROMOTIONS) {
+                    moves.add(ChessMove.of(from, to, promotion));
                 }
             }
             else {
-                moves.add(new ChessMove(myPosition,newPosition,null));
-                moves.addAll(piece.getBishopRookQueenMoves(board, myPosition, row+y, col+x, x, y));
-                return moves;
+                moves.add(ChessMove.of(from, to, null));
             }
         }
-        else {
-            return moves;
-        }
+        return moves;
     }
 
-    private Collection<ChessMove> getKingKnightMoves(ChessBoard board, ChessPosition myPosition, int x, int y) {
-        ChessPosition newPosition = new ChessPosition(myPosition.getRow() + y, myPosition.getColumn() + x);
+    /**
+     * Calculates the same moves as {@link #pieceMoves(ChessBoard, ChessPosition)}, but writes
+     * them as {@link PackedMove} ints into a caller-supplied buffer instead of allocating
+     *
+     * @param square square index this piece stands on
+     * @param buffer buffer to append moves to
+     * @param count  number of moves already in the buffer
+     * @return the new number of moves in the buffer
+     */
+    public int pieceMoves(ChessBoard board, int square, int[] buffer, int count) {
+        return pieceMoves(board, square, buffer, count, -1L);
+    }
 
-        ArrayList<ChessMove> moves = new ArrayList<>();
-        ChessPiece piece = board.getPiece(myPosition);
-
-        if (newPosition.getRow() >= 1 && newPosition.getRow() <= 8 && newPosition.getColumn() >= 1 && newPosition.getColumn() <= 8){
-            ChessPiece newPiece = board.getPiece(newPosition);
-            if (newPiece != null) {
-                if (newPiece.getTeamColor() != piece.getTeamColor()){
-                    moves.add(new ChessMove(myPosition,newPosition,null));
-                    return moves;
+    /**
+     * Same as {@link #pieceMoves(ChessBoard, int, int[], int)}, keeping only moves that end on
+     * an allowed square
+     */
+    int pieceMoves(ChessBoard board, int square, int[] buffer, int count, long allowed) {
+        long enemy = board.getOccupancy(opponent(pieceColor));
+        long targets = targets(board, square) & allowed;
+
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int flags = (enemy & Bitboards.bit(to)) != 0 ? PackedMove.CAPTURE : 0;
+            if (type == PieceType.PAWN) {
+                int row = Bitboards.row(to);
+                if (row == 8 || row == 1) {
+                    for (PieceType promotion : PROMOTIONS) {
+                        buffer[count++] = PackedMove.of(square, to, promotion, flags);
+                    }
+                    continue;
                 }
-                else {
-                    return moves;
+                if (Math.abs(to - square) == 16) {
+                    flags |= PackedMove.DOUBLE_PUSH;
                 }
             }
-            else {
-                moves.add(new ChessMove(myPosition,newPosition,null));
-                return moves;
-            }
-        }
-        else {
-            return moves;
+            buffer[count++] = PackedMove.of(square, to, null, flags);
         }
+        return count;
     }
 
-    private Collection<ChessMove> getPawnMoves(ChessBoard board, ChessPosition myPosition) {
-        int direction = pieceColor == ChessGame.TeamColor.WHITE ? 1 : -1;
-        boolean starting = (myPosition.getRow() == 2 && direction == 1) || (myPosition.getRow() == 7 && direction == -1);
-        ArrayList<ChessMove> moves = new ArrayList<>();
+    /**
+     * Calculates the squares attacked by a piece, ignoring which team occupies them
+     *
+     * @param square   square the piece stands on
+     * @param occupied bitboard of every occupied square
+     * @return bitboard of attacked squares
+     */
+    public static long attacks(ChessGame.TeamColor color, PieceType type, int square, long occupied) {
+        return switch (type) {
+            case KING -> Bitboards.kingAttacks(square);
+            case QUEEN -> Bitboards.queenAttacks(square, occupied);
+            case BISHOP -> Bitboards.bishopAttacks(square, occupied);
+            case KNIGHT -> Bitboards.knightAttacks(square);
+            case ROOK -> Bitboards.rookAttacks(square, occupied);
+            case PAWN -> Bitboards.pawnAttacks(color, square);
+        };
+    }
 
-        ArrayList<PieceType> promotions = new ArrayList<>();
-        promotions.add(PieceType.QUEEN);
-        promotions.add(PieceType.BISHOP);
-        promotions.add(PieceType.KNIGHT);
-        promotions.add(PieceType.ROOK);
-
-        if (starting) {
-            ChessPosition newPositionOne = new ChessPosition(myPosition.getRow() + direction, myPosition.getColumn());
-            ChessPiece newPieceOne = board.getPiece(newPositionOne);
-            ChessPosition newPositionTwo = new ChessPosition(myPosition.getRow() + 2*direction, myPosition.getColumn());
-            ChessPiece newPieceTwo = board.getPiece(newPositionTwo);
-            if (newPieceOne == null && newPieceTwo == null){
-                moves.add(new ChessMove(myPosition,newPositionTwo,null));
-            }
+    /**
+     * Calculates the bitboard of destination squares for this piece standing on a square
+     */
+    private long targets(ChessBoard board, int from) {
+        long own = board.getOccupancy(pieceColor);
+        long enemy = board.getOccupancy(opponent(pieceColor));
+        long occupied = own | enemy;
+
+        if (type != PieceType.PAWN) {
+            return attacks(pieceColor, type, from, occupied) & ~own;
         }
-        int[] threeCols = {-1,0,1};
-        for (int col : threeCols) {
-            ChessPosition newPosition = new ChessPosition(myPosition.getRow() + direction, myPosition.getColumn() + col);
-            boolean promote = (myPosition.getRow() + direction == 8) || (myPosition.getRow() + direction == 1);
-            if (newPosition.getRow() >= 1 && newPosition.getRow() <= 8 && newPosition.getColumn() >= 1 && newPosition.getColumn() <= 8){
-                ChessPiece newPiece = board.getPiece(newPosition);
-                if (newPiece != null && col != 0 && pieceColor != newPiece.getTeamColor()) {
-                    if (promote) {
-                        for (PieceType promotion : promotions){
-                            moves.add(new ChessMove(myPosition, newPosition, promotion));
-                        }
-                    }
-                    else {
-                        moves.add(new ChessMove(myPosition, newPosition, null));
-                    }
-                }
-                if (newPiece == null && col == 0) {
-                    if (promote) {
-                        for (PieceType promotion : promotions){
-                            moves.add(new ChessMove(myPosition, newPosition, promotion));
-                        }
-                    }
-                    else {
-                        moves.add(new ChessMove(myPosition, newPosition, null));
-                    }
+
+        long targets = Bitboards.pawnAttacks(pieceColor, from) & enemy;
+        int direction = pieceColor == ChessGame.TeamColor.WHITE ? 1 : -1;
+        int row = Bitboards.row(from);
+        int oneRow = row + direction;
+        if (oneRow >= 1 && oneRow <= 8) {
+            long one = Bitboards.bit(from + 8 * direction);
+            if ((occupied & one) == 0) {
+                targets |= one;
+                boolean starting = (row == 2 && direction == 1) || (row == 7 && direction == -1);
+                long two = Bitboards.bit(from + 16 * direction);
+                if (starting && (occupied & two) == 0) {
+                    targets |= two;
                 }
             }
         }
-        return moves;
+        return targets;
+    }
+
+    static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    /**
+     * Pieces are immutable, so code that places pieces often (such as promotions during
+     * move validation) can reuse one shared instance per color and type
+     *
+     * @return the shared piece of the given color and type
+     */
+    public static ChessPiece of(ChessGame.TeamColor color, PieceType type) {
+        return SHARED[ChessBoard.pieceIndex(color, type)];
     }
 
     public ChessPiece copy() {
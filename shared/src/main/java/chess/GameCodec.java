@@ -0,0 +1,75 @@
+package chess;
+
+/**
+ * Encodes a game as a fixed 34-byte array, for storage.
+ * <p>
+ * Byte 0 is the format version. Bytes 1 to 32 hold one nibble per square, a1 first and
+ * the low nibble first within a byte: 0 for an empty square, otherwise the piece's color
+ * ordinal * 6 + type ordinal + 1. Byte 33 holds flags: {@link #BLACK_TO_MOVE} and
+ * {@link #FINISHED}.
+ * <p>
+ * Like {@link Fen}, only the position is kept; the undo history is not.
+ */
+public final class GameCodec {
+
+    public static final int LENGTH = 34;
+    public static final int VERSION = 1;
+
+    static final int BLACK_TO_MOVE = 1;
+    static final int FINISHED = 1 << 1;
+
+    private static final ChessGame.TeamColor[] COLORS = ChessGame.TeamColor.values();
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private GameCodec() {
+    }
+
+    public static byte[] encode(ChessGame game) {
+        byte[] bytes = new byte[LENGTH];
+        bytes[0] = VERSION;
+        ChessBoard board = game.getBoard();
+        for (int square = 0; square < 64; square++) {
+            ChessPiece piece = board.getPiece(square);
+            if (piece != null) {
+                int nibble = ChessBoard.pieceIndex(piece.getTeamColor(), piece.getPieceType()) + 1;
+                bytes[1 + square / 2] |= (byte) (nibble << (square % 2 * 4));
+            }
+        }
+        int flags = 0;
+        if (game.getTeamTurn() == ChessGame.TeamColor.BLACK) {
+            flags |= BLACK_TO_MOVE;
+        }
+        if (game.checkGameFinished()) {
+            flags |= FINISHED;
+        }
+        bytes[LENGTH - 1] = (byte) flags;
+        return bytes;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not an encoded game
+     */
+    public static ChessGame decode(byte[] bytes) {
+        if (bytes == null || bytes.length != LENGTH || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("not an encoded chess game");
+        }
+        ChessBoard board = new ChessBoard();
+        for (int square = 0; square < 64; square++) {
+            int nibble = (bytes[1 + square / 2] >> (square % 2 * 4)) & 0xF;
+            if (nibble == 0) {
+                continue;
+            }
+            if (nibble > COLORS.length * TYPES.length) {
+                throw new IllegalArgumentException(String.format("bad piece %d on square %d", nibble, square));
+            }
+            ChessPiece piece = ChessPiece.of(COLORS[(nibble - 1) / 6], TYPES[(nibble - 1) % 6]);
+            board.addPiece(ChessPosition.ofSquare(square), piece);
+        }
+
+        int flags = bytes[LENGTH - 1];
+        ChessGame game = ChessGame.of(board,
+                (flags & BLACK_TO_MOVE) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        game.setGameFinished((flags & FINISHED) != 0);
+        return game;
+    }
+}
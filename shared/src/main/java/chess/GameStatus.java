@@ -0,0 +1,22 @@
+package chess;
+
+import java.util.List;
+
+/**
+ * The state of one team in a position: whether it is in check, its valid moves, and
+ * whether that leaves it checkmated or stalemated
+ */
+public record GameStatus(ChessGame.TeamColor team, boolean inCheck, List<ChessMove> validMoves) {
+
+    public int validMoveCount() {
+        return validMoves.size();
+    }
+
+    public boolean checkmate() {
+        return inCheck && validMoves.isEmpty();
+    }
+
+    public boolean stalemate() {
+        return !inCheck && validMoves.isEmpty();
+    }
+}
@@ -0,0 +1,84 @@
+package chess;
+
+/**
+ * Generates only legal moves, without trying any move on the board.
+ * <p>
+ * Checkers and pinned pieces are found once per call. In double check only the
+ * king may move; in single check every other piece is limited to capturing the
+ * checker or blocking between it and the king; a pinned piece is limited to the
+ * line through its king. King moves are tested against enemy attacks with the king
+ * lifted off the board, so it cannot step back along a checking ray.
+ * <p>
+ * This relies on the team having exactly one king; ChessGame falls back to trial
+ * moves for boards that do not.
+ */
+final class MoveGenerator {
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Writes the legal moves of a team's pieces standing on the given squares
+     *
+     * @param from   bitboard of the squares whose pieces to generate moves for
+     * @param buffer buffer to append {@link PackedMove} ints to
+     * @param count  number of moves already in the buffer
+     * @return the new number of moves in the buffer
+     */
+    static int legalMoves(ChessBoard board, ChessGame.TeamColor color, long from, int[] buffer, int count) {
+        ChessGame.TeamColor enemy = ChessPiece.opponent(color);
+        int kingSquare = board.getKingSquare(color);
+        long king = Bitboards.bit(kingSquare);
+        long own = board.getOccupancy(color);
+        long enemies = board.getOccupancy(enemy);
+        long occupied = own | enemies;
+        long checkers = board.attackersTo(kingSquare, enemy, occupied);
+
+        if ((from & king) != 0) {
+            long targets = Bitboards.kingAttacks(kingSquare) & ~own;
+            long withoutKing = occupied & ~king;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if (board.attackersTo(to, enemy, withoutKing) == 0) {
+                    int flags = (enemies & Bitboards.bit(to)) != 0 ? PackedMove.CAPTURE : 0;
+                    buffer[count++] = PackedMove.of(kingSquare, to, null, flags);
+                }
+            }
+        }
+
+        if (Long.bitCount(checkers) > 1) {
+            return count;
+        }
+        long checkMask = checkers == 0 ? -1L
+                : Bitboards.between(kingSquare, Long.numberOfTrailingZeros(checkers)) | checkers;
+
+        // sliders that would attack the king if our own pieces were not in the way
+        long queens = board.getPieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (Bitboards.rookAttacks(kingSquare, enemies)
+                & (board.getPieces(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (Bitboards.bishopAttacks(kingSquare, enemies)
+                & (board.getPieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+        long pinned = 0L;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboards.between(kingSquare, sniper) & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & own;
+            }
+        }
+
+        long pieces = own & from & ~king;
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long allowed = checkMask;
+            if ((pinned & Bitboards.bit(square)) != 0) {
+                allowed &= Bitboards.line(kingSquare, square);
+            }
+            count = board.getPiece(square).pieceMoves(board, square, buffer, count, allowed);
+        }
+        return count;
+    }
+}
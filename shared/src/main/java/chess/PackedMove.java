@@ -0,0 +1,94 @@
+package chess;
+
+/**
+ * Encodes a chess move as a single int, so move generation can fill a primitive
+ * buffer instead of allocating {@link ChessMove} objects.
+ * <p>
+ * Bits 0-5 hold the start square, bits 6-11 the end square (see {@link Bitboards}),
+ * bits 12-14 the promotion type (0 for none, otherwise {@code PieceType.ordinal() + 1})
+ * and the remaining bits are flags such as {@link #CAPTURE}.
+ */
+public final class PackedMove {
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int DOUBLE_PUSH = 1 << 16;
+
+    /**
+     * Large enough for the legal moves of any reachable position
+     */
+    public static final int MAX_MOVES = 256;
+
+    // from, to and promotion; two packed moves are the same move when these bits match
+    private static final int MOVE_MASK = (1 << 15) - 1;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    public static int of(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int promotionBits = promotion == null ? 0 : promotion.ordinal() + 1;
+        return from | to << 6 | promotionBits << 12 | flags;
+    }
+
+    public static int of(ChessMove move) {
+        return of(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece(), 0);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return the type a pawn promotes to, or null if this is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotionBits = (move >>> 12) & 7;
+        return promotionBits == 0 ? null : TYPES[promotionBits - 1];
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * @return true if both encode the same start, end and promotion, ignoring flags
+     */
+    public static boolean sameMove(int a, int b) {
+        return (a & MOVE_MASK) == (b & MOVE_MASK);
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(from(move), to(move), promotion(move));
+    }
+
+    /**
+     * @return the move in coordinate notation, e.g. "e2e4" or "a7a8q"
+     */
+    public static String toNotation(int move) {
+        String notation = squareName(from(move)) + squareName(to(move));
+        ChessPiece.PieceType promotion = promotion(move);
+        if (promotion != null) {
+            notation += switch (promotion) {
+                case QUEEN -> "q";
+                case ROOK -> "r";
+                case BISHOP -> "b";
+                case KNIGHT -> "n";
+                default -> "";
+            };
+        }
+        return notation;
+    }
+
+    /**
+     * @return the square's name, e.g. "e4"
+     */
+    public static String squareName(int square) {
+        return String.valueOf((char) ('a' + Bitboards.column(square) - 1)) + Bitboards.row(square);
+    }
+}
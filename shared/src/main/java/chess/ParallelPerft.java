@@ -0,0 +1,138 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * {@link Perft} on a {@link ForkJoinPool}.
+ * <p>
+ * The root is always split into one task per move, each on its own copy of the game.
+ * Below the root a task splits again only while the pool is short of queued work, so
+ * an uneven tree is broken up further where the threads would otherwise sit idle,
+ * and small subtrees are counted with the single-threaded {@link Perft}.
+ * <p>
+ * Run with {@code java chess.ParallelPerft <depth> [fen]} to print the speedup over the
+ * single-threaded count for each pool size up to the number of available processors.
+ */
+public final class ParallelPerft {
+
+    // subtrees this shallow are never worth a task of their own
+    private static final int SEQUENTIAL_DEPTH = 2;
+    // split while fewer than this many tasks are waiting to be stolen
+    private static final int SURPLUS_TASKS = 2;
+
+    private ParallelPerft() {
+    }
+
+    public static long perft(ChessGame game, int depth, ForkJoinPool pool) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return pool.invoke(new Subtree(game.copyGame(), depth, true));
+    }
+
+    public static long perft(ChessGame game, int depth) {
+        return perft(game, depth, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @return the leaf node count below each legal root move, keyed by coordinate notation
+     */
+    public static Map<String, Long> divide(ChessGame game, int depth, ForkJoinPool pool) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        if (depth <= 0) {
+            return counts;
+        }
+        int[] moves = new int[PackedMove.MAX_MOVES];
+        int count = game.validMoves(game.getTeamTurn(), moves);
+        List<Subtree> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(new Subtree(child(game, moves[i]), depth - 1, false));
+        }
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(tasks);
+                return null;
+            }
+        });
+        for (int i = 0; i < count; i++) {
+            counts.put(PackedMove.toNotation(moves[i]), tasks.get(i).join());
+        }
+        return counts;
+    }
+
+    private static ChessGame child(ChessGame game, int move) {
+        ChessGame child = game.copyGame();
+        child.forceMove(move);
+        return child;
+    }
+
+    private static final class Subtree extends RecursiveTask<Long> {
+
+        private final ChessGame game;
+        private final int depth;
+        private final boolean split;
+
+        Subtree(ChessGame game, int depth, boolean split) {
+            this.game = game;
+            this.depth = depth;
+            this.split = split;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth <= SEQUENTIAL_DEPTH || !split && getSurplusQueuedTaskCount() >= SURPLUS_TASKS) {
+                return Perft.perft(game, depth);
+            }
+            int[] moves = new int[PackedMove.MAX_MOVES];
+            int count = game.validMoves(game.getTeamTurn(), moves);
+            List<Subtree> children = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                children.add(new Subtree(child(game, moves[i]), depth - 1, false));
+            }
+            long nodes = 0;
+            for (Subtree child : invokeAll(children)) {
+                nodes += child.join();
+            }
+            return nodes;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("usage: java chess.ParallelPerft <depth> [fen]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        String fen = args.length > 1 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length)) : Fen.START;
+        ChessGame game = Fen.load(fen);
+
+        long start = System.nanoTime();
+        long nodes = Perft.perft(game, depth);
+        double baseline = (System.nanoTime() - start) / 1e9;
+        System.out.printf("single-threaded: %d nodes in %.3f s%n", nodes, baseline);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; ; threads = Math.min(threads * 2, processors)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            start = System.nanoTime();
+            long parallelNodes = perft(game, depth, pool);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            pool.shutdown();
+            if (parallelNodes != nodes) {
+                throw new IllegalStateException(String.format("%d threads counted %d nodes, expected %d",
+                        threads, parallelNodes, nodes));
+            }
+            System.out.printf("%3d threads: %.3f s, speedup %.2fx%n", threads, elapsed, baseline / elapsed);
+            if (threads == processors) {
+                break;
+            }
+        }
+    }
+}
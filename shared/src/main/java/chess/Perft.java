@@ -0,0 +1,87 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth ("perft"), both as a
+ * correctness check for move generation against published counts and as a measure
+ * of move generation throughput.
+ * <p>
+ * Run with {@code java chess.Perft <depth> [fen]}, which prints the divide output
+ * (the node count below each root move), the total, and nodes per second.
+ */
+public final class Perft {
+
+    private Perft() {
+    }
+
+    /**
+     * @return the number of leaf nodes of the legal move tree below the game's position
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return perft(game, depth, new int[depth][PackedMove.MAX_MOVES]);
+    }
+
+    /**
+     * @return the leaf node count below each legal root move, keyed by coordinate notation
+     */
+    public static Map<String, Long> divide(ChessGame game, int depth) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        if (depth <= 0) {
+            return counts;
+        }
+        int[][] buffers = new int[depth][PackedMove.MAX_MOVES];
+        int count = game.validMoves(game.getTeamTurn(), buffers[depth - 1]);
+        for (int i = 0; i < count; i++) {
+            int move = buffers[depth - 1][i];
+            game.forceMove(move);
+            counts.put(PackedMove.toNotation(move), depth == 1 ? 1 : perft(game, depth - 1, buffers));
+            game.unmakeMove();
+        }
+        return counts;
+    }
+
+    // buffers[depth - 1] holds the moves generated at that remaining depth
+    private static long perft(ChessGame game, int depth, int[][] buffers) {
+        int[] moves = buffers[depth - 1];
+        int count = game.validMoves(game.getTeamTurn(), moves);
+        if (depth == 1) {
+            return count;
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            game.forceMove(moves[i]);
+            nodes += perft(game, depth - 1, buffers);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("usage: java chess.Perft <depth> [fen]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        String fen = args.length > 1 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length)) : Fen.START;
+        ChessGame game = Fen.load(fen);
+
+        long start = System.nanoTime();
+        Map<String, Long> counts = divide(game, depth);
+        long elapsed = System.nanoTime() - start;
+
+        long total = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            System.out.printf("%s: %d%n", entry.getKey(), entry.getValue());
+            total += entry.getValue();
+        }
+        System.out.printf("%nNodes searched: %d%n", total);
+        System.out.printf("Time: %.3f s, %.0f nodes/s%n", elapsed / 1e9, total / Math.max(elapsed / 1e9, 1e-9));
+    }
+}
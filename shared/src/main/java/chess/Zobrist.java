@@ -0,0 +1,48 @@
+package chess;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of the key for every
+ * piece on its square, plus {@link #BLACK_TO_MOVE} when black is to move, so it can
+ * be updated incrementally as pieces are added and removed.
+ */
+public final class Zobrist {
+
+    public static final long BLACK_TO_MOVE;
+
+    // indexed by ChessBoard.pieceIndex, then square
+    private static final long[][] PIECE_KEYS = new long[12][64];
+
+    static {
+        // fixed seed so keys (and anything stored by key) are stable between runs
+        long seed = 0x2F6B4C1D8E5A3907L;
+        for (int piece = 0; piece < 12; piece++) {
+            for (int square = 0; square < 64; square++) {
+                seed = nextRandom(seed);
+                PIECE_KEYS[piece][square] = mix(seed);
+            }
+        }
+        BLACK_TO_MOVE = mix(nextRandom(seed));
+    }
+
+    private Zobrist() {
+    }
+
+    public static long pieceKey(ChessGame.TeamColor color, ChessPiece.PieceType type, int square) {
+        return PIECE_KEYS[ChessBoard.pieceIndex(color, type)][square];
+    }
+
+    static long pieceKey(int pieceIndex, int square) {
+        return PIECE_KEYS[pieceIndex][square];
+    }
+
+    private static long nextRandom(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    // splitmix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
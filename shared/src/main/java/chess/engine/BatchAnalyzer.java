@@ -0,0 +1,114 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Fen;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Searches many unrelated positions on a {@link ForkJoinPool}, one single-threaded
+ * {@link Search} per position.
+ * <p>
+ * The list is split in halves until each task holds one position, so idle workers steal
+ * whatever is left regardless of how long individual searches take. Each worker thread
+ * keeps one transposition table and reuses it from position to position.
+ * <p>
+ * Run with {@code java chess.engine.BatchAnalyzer <depth>}, one FEN per line on standard
+ * input, to time the batch on pools of 1, 2, 4, ... threads.
+ */
+public class BatchAnalyzer {
+
+    private final ForkJoinPool pool;
+    private final SearchLimits limits;
+    private final ThreadLocal<TranspositionTable> tables;
+
+    /**
+     * @param pool           the pool to run on
+     * @param limits         the limits applied to each position
+     * @param tableMegabytes size of each worker's transposition table
+     */
+    public BatchAnalyzer(ForkJoinPool pool, SearchLimits limits, int tableMegabytes) {
+        this.pool = pool;
+        this.limits = limits;
+        this.tables = ThreadLocal.withInitial(() -> new TranspositionTable(tableMegabytes));
+    }
+
+    public BatchAnalyzer(SearchLimits limits) {
+        this(ForkJoinPool.commonPool(), limits, Search.DEFAULT_TABLE_MB);
+    }
+
+    /**
+     * @return one result per game, in the same order
+     */
+    public List<SearchResult> analyze(List<ChessGame> games) {
+        SearchResult[] results = new SearchResult[games.size()];
+        pool.invoke(new Batch(games, results, 0, games.size()));
+        return Arrays.asList(results);
+    }
+
+    private final class Batch extends RecursiveAction {
+
+        private final List<ChessGame> games;
+        private final SearchResult[] results;
+        private final int start;
+        private final int end;
+
+        Batch(List<ChessGame> games, SearchResult[] results, int start, int end) {
+            this.games = games;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                results[start] = new Search(games.get(start), tables.get()).search(limits);
+            }
+            else if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new Batch(games, results, start, middle), new Batch(games, results, middle, end));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: java chess.engine.BatchAnalyzer <depth> < positions.fen");
+            return;
+        }
+        SearchLimits limits = SearchLimits.depth(Integer.parseInt(args[0]));
+        List<ChessGame> games = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            if (!line.isBlank()) {
+                games.add(Fen.load(line));
+            }
+        }
+
+        double baseline = 0;
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; ; threads = Math.min(threads * 2, processors)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            long start = System.nanoTime();
+            new BatchAnalyzer(pool, limits, Search.DEFAULT_TABLE_MB).analyze(games);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            pool.shutdown();
+            if (threads == 1) {
+                baseline = elapsed;
+            }
+            System.out.printf("%3d threads: %d positions in %.3f s, speedup %.2fx%n",
+                    threads, games.size(), elapsed, baseline / elapsed);
+            if (threads == processors) {
+                break;
+            }
+        }
+    }
+}
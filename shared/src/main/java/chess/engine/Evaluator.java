@@ -0,0 +1,115 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.PieceSquareTables;
+
+/**
+ * Static evaluation of a position, in centipawns.
+ * <p>
+ * Material and piece-square values come straight from {@link ChessBoard#getPieceSquareScore()},
+ * which the board keeps up to date as pieces move. On top of that come pawn-structure
+ * terms: doubled, isolated and passed pawns. Those depend on the pawns alone, so they are
+ * cached in a {@link PawnHashTable} by {@link ChessBoard#getPawnKey()}.
+ * <p>
+ * An evaluator owns its pawn table, so each search thread needs its own evaluator.
+ */
+public class Evaluator {
+
+    static final int DOUBLED_PAWN = -10;
+    static final int ISOLATED_PAWN = -15;
+    // by rank counted from the pawn's own side, 1-8
+    static final int[] PASSED_PAWN = {0, 0, 5, 10, 20, 35, 60, 100, 0};
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    // squares in front of a pawn on its own and adjacent files, by color ordinal and square
+    private static final long[][] PASSED_MASKS = new long[2][64];
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            FILES[file] = Bitboards.FILE_A << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0L) | (file < 7 ? FILES[file + 1] : 0L);
+        }
+        for (int square = 0; square < 64; square++) {
+            int file = Bitboards.column(square) - 1;
+            long span = FILES[file] | ADJACENT_FILES[file];
+            int row = Bitboards.row(square);
+            long above = row == 8 ? 0L : -1L << (row * 8);
+            long below = row == 1 ? 0L : -1L >>> ((9 - row) * 8);
+            PASSED_MASKS[ChessGame.TeamColor.WHITE.ordinal()][square] = span & above;
+            PASSED_MASKS[ChessGame.TeamColor.BLACK.ordinal()][square] = span & below;
+        }
+    }
+
+    private final PawnHashTable pawnTable;
+
+    public Evaluator(PawnHashTable pawnTable) {
+        this.pawnTable = pawnTable;
+    }
+
+    public Evaluator() {
+        this(new PawnHashTable());
+    }
+
+    /**
+     * @return the score of the board from the given team's point of view
+     */
+    public int evaluate(ChessBoard board, ChessGame.TeamColor side) {
+        int score = board.getPieceSquareScore() + cachedPawnStructure(board);
+        return side == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    public PawnHashTable pawnTable() {
+        return pawnTable;
+    }
+
+    private int cachedPawnStructure(ChessBoard board) {
+        long key = board.getPawnKey();
+        int score = pawnTable.probe(key);
+        if (score != PawnHashTable.MISS) {
+            return score;
+        }
+        score = pawnStructure(board);
+        pawnTable.store(key, score);
+        return score;
+    }
+
+    /**
+     * @return the pawn-structure terms for both sides, from white's point of view
+     */
+    int pawnStructure(ChessBoard board) {
+        long white = board.getPieces(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        long black = board.getPieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        return pawnTerms(ChessGame.TeamColor.WHITE, white, black) - pawnTerms(ChessGame.TeamColor.BLACK, black, white);
+    }
+
+    public static int pieceValue(ChessPiece.PieceType type) {
+        return PieceSquareTables.pieceValue(type);
+    }
+
+    private static int pawnTerms(ChessGame.TeamColor color, long own, long enemy) {
+        int score = 0;
+        for (int file = 0; file < 8; file++) {
+            int count = Long.bitCount(own & FILES[file]);
+            if (count > 1) {
+                score += DOUBLED_PAWN * (count - 1);
+            }
+            if (count > 0 && (own & ADJACENT_FILES[file]) == 0) {
+                score += ISOLATED_PAWN * count;
+            }
+        }
+        for (long pawns = own; pawns != 0; pawns &= pawns - 1) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            if ((enemy & PASSED_MASKS[color.ordinal()][square]) == 0) {
+                int rank = color == ChessGame.TeamColor.WHITE ? Bitboards.row(square) : 9 - Bitboards.row(square);
+                score += PASSED_PAWN[rank];
+            }
+        }
+        return score;
+    }
+}
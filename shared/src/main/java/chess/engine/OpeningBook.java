@@ -0,0 +1,139 @@
+package chess.engine;
+
+import chess.ChessGame;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only opening book, memory-mapped from a file written by {@link OpeningBookBuilder}.
+ * <p>
+ * The file is an 8-byte magic number followed by fixed-size entries, each a position key
+ * ({@link ChessGame#getPositionKey()}, 8 bytes), a move ({@link chess.PackedMove} without
+ * flags, 2 bytes) and an unsigned weight (2 bytes). Entries are sorted by key, and by
+ * descending weight within a key, so lookups are a binary search over the mapping and
+ * allocate nothing. The pages live in the OS page cache and are shared by every process
+ * that maps the same file.
+ * <p>
+ * Reads use absolute positions only, so one book can be shared by any number of threads.
+ */
+public final class OpeningBook {
+
+    // "CHESSBK1"
+    static final long MAGIC = 0x4348455353424B31L;
+    static final int HEADER_BYTES = Long.BYTES;
+    static final int ENTRY_BYTES = Long.BYTES + 2 * Short.BYTES;
+
+    private final MappedByteBuffer buffer;
+    private final int entries;
+
+    private OpeningBook(MappedByteBuffer buffer, int entries) {
+        this.buffer = buffer;
+        this.entries = entries;
+    }
+
+    /**
+     * @throws IOException if the file cannot be read or is not an opening book
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || (size - HEADER_BYTES) % ENTRY_BYTES != 0 || size > Integer.MAX_VALUE) {
+                throw new IOException(String.format("not an opening book: %s", path));
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getLong(0) != MAGIC) {
+                throw new IOException(String.format("not an opening book: %s", path));
+            }
+            return new OpeningBook(buffer, (int) ((size - HEADER_BYTES) / ENTRY_BYTES));
+        }
+    }
+
+    /**
+     * @return the book at path, or null if there is no file there
+     */
+    public static OpeningBook openIfExists(Path path) throws IOException {
+        return Files.isRegularFile(path) ? open(path) : null;
+    }
+
+    public int size() {
+        return entries;
+    }
+
+    /**
+     * @return the index of the first entry for the key, or -1 if the book has none
+     */
+    public int find(long key) {
+        int low = 0;
+        int high = entries;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key(middle) < key) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low < entries && key(low) == key ? low : -1;
+    }
+
+    /**
+     * @return the most played book move for the game's position, or 0 if it is out of book
+     */
+    public int bestMove(ChessGame game) {
+        int index = find(game.getPositionKey());
+        return index < 0 ? 0 : move(index);
+    }
+
+    /**
+     * Picks a book move at random, in proportion to the weights.
+     *
+     * @param random any non-negative int, e.g. from {@code ThreadLocalRandom}
+     * @return the chosen move, or 0 if the position is out of book
+     */
+    public int pickMove(ChessGame game, int random) {
+        long key = game.getPositionKey();
+        int first = find(key);
+        if (first < 0) {
+            return 0;
+        }
+        int total = 0;
+        int end = first;
+        while (end < entries && key(end) == key) {
+            total += weight(end);
+            end++;
+        }
+        if (total == 0) {
+            return move(first);
+        }
+        int target = random % total;
+        for (int i = first; i < end; i++) {
+            target -= weight(i);
+            if (target < 0) {
+                return move(i);
+            }
+        }
+        return move(first);
+    }
+
+    public long key(int index) {
+        return buffer.getLong(offset(index));
+    }
+
+    public int move(int index) {
+        return buffer.getShort(offset(index) + Long.BYTES) & 0xFFFF;
+    }
+
+    public int weight(int index) {
+        return buffer.getShort(offset(index) + Long.BYTES + Short.BYTES) & 0xFFFF;
+    }
+
+    private static int offset(int index) {
+        return HEADER_BYTES + index * ENTRY_BYTES;
+    }
+}
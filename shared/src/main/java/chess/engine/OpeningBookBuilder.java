@@ -0,0 +1,241 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.PackedMove;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds an {@link OpeningBook} file from games in PGN or as plain move lists.
+ * <p>
+ * Moves may be in standard algebraic notation ("Nf3", "exd5", "e8=Q+") or coordinate
+ * notation ("g1f3"). Headers, comments, NAGs and variations are skipped. Each game adds
+ * one to the weight of every (position, move) pair in its first plies; a game is cut off
+ * at its first move that cannot be played here, such as castling, which ChessGame does
+ * not model.
+ * <p>
+ * Run with {@code java chess.engine.OpeningBookBuilder <book file> <pgn file>...}.
+ */
+public class OpeningBookBuilder {
+
+    public static final int DEFAULT_MAX_PLIES = 24;
+
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    private final int maxPlies;
+    // position key -> packed move -> number of games that played it
+    private final Map<Long, Map<Integer, Integer>> counts = new HashMap<>();
+    private int games;
+
+    public OpeningBookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    public OpeningBookBuilder() {
+        this(DEFAULT_MAX_PLIES);
+    }
+
+    /**
+     * Adds every game in the text, which may hold any number of PGN games or move lists.
+     */
+    public void addPgn(String pgn) {
+        StringBuilder movetext = new StringBuilder();
+        boolean comment = false;
+        boolean lineComment = false;
+        boolean header = false;
+        int variation = 0;
+        for (char c : pgn.toCharArray()) {
+            if (comment) {
+                comment = c != '}';
+            }
+            else if (lineComment) {
+                lineComment = c != '\n';
+            }
+            else if (header) {
+                header = c != ']';
+            }
+            else if (c == '{') {
+                comment = true;
+            }
+            else if (c == ';') {
+                lineComment = true;
+            }
+            else if (c == '[' && variation == 0) {
+                header = true;
+            }
+            else if (c == '(') {
+                variation++;
+            }
+            else if (c == ')') {
+                variation = Math.max(0, variation - 1);
+            }
+            else if (variation == 0) {
+                movetext.append(c);
+            }
+            if (!(comment || lineComment || header || variation > 0) && (c == '}' || c == ']' || c == ')')) {
+                movetext.append(' ');
+            }
+        }
+
+        List<String> moves = new ArrayList<>();
+        for (String token : movetext.toString().split("\\s+")) {
+            String move = token.replaceFirst("^\\d+\\.+", "");
+            if (move.isEmpty() || move.startsWith("$")) {
+                continue;
+            }
+            if (move.equals("1-0") || move.equals("0-1") || move.equals("1/2-1/2") || move.equals("*")) {
+                addGame(moves);
+                moves.clear();
+            }
+            else {
+                moves.add(move);
+            }
+        }
+        addGame(moves);
+    }
+
+    /**
+     * Adds one game given as a list of moves from the starting position.
+     */
+    public void addGame(List<String> moves) {
+        if (moves.isEmpty()) {
+            return;
+        }
+        ChessGame game = new ChessGame();
+        int[] legal = new int[PackedMove.MAX_MOVES];
+        for (int ply = 0; ply < Math.min(maxPlies, moves.size()); ply++) {
+            int count = game.validMoves(game.getTeamTurn(), legal);
+            int move = parseMove(game, moves.get(ply), legal, count);
+            if (move == 0) {
+                break;
+            }
+            counts.computeIfAbsent(game.getPositionKey(), key -> new HashMap<>())
+                    .merge(move & 0x7FFF, 1, Integer::sum);
+            game.forceMove(move);
+        }
+        games++;
+    }
+
+    public int games() {
+        return games;
+    }
+
+    public void write(Path path) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        for (Map.Entry<Long, Map<Integer, Integer>> position : counts.entrySet()) {
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                entries.add(new long[]{position.getKey(), move.getKey(), Math.min(move.getValue(), MAX_WEIGHT)});
+            }
+        }
+        // by key, then most played first, then by move so the output is deterministic
+        entries.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0])
+                : a[2] != b[2] ? Long.compare(b[2], a[2]) : Long.compare(a[1], b[1]));
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeLong(OpeningBook.MAGIC);
+            for (long[] entry : entries) {
+                out.writeLong(entry[0]);
+                out.writeShort((int) entry[1]);
+                out.writeShort((int) entry[2]);
+            }
+        }
+    }
+
+    /**
+     * @return the legal move the notation describes, or 0 if it matches none or is ambiguous
+     */
+    static int parseMove(ChessGame game, String notation, int[] legal, int count) {
+        String move = notation.replaceAll("[+#!?]", "");
+        if (move.matches("[a-h][1-8][a-h][1-8][qrbn]?")) {
+            for (int i = 0; i < count; i++) {
+                if (PackedMove.toNotation(legal[i]).equals(move)) {
+                    return legal[i];
+                }
+            }
+            return 0;
+        }
+
+        ChessPiece.PieceType promotion = null;
+        int equals = move.indexOf('=');
+        if (equals >= 0) {
+            if (equals + 1 >= move.length()) {
+                return 0;
+            }
+            promotion = pieceType(move.charAt(equals + 1));
+            move = move.substring(0, equals);
+        }
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if (!move.isEmpty() && pieceType(move.charAt(0)) != null) {
+            type = pieceType(move.charAt(0));
+            move = move.substring(1);
+        }
+        move = move.replace("x", "");
+        if (!move.matches("[a-h]?[1-8]?[a-h][1-8]")) {
+            return 0;
+        }
+        int target = Bitboards.square(move.charAt(move.length() - 1) - '0', move.charAt(move.length() - 2) - 'a' + 1);
+        String from = move.substring(0, move.length() - 2);
+
+        int match = 0;
+        for (int i = 0; i < count; i++) {
+            int candidate = legal[i];
+            int start = PackedMove.from(candidate);
+            if (PackedMove.to(candidate) != target || PackedMove.promotion(candidate) != promotion
+                    || game.getBoard().getPiece(start).getPieceType() != type || !matchesOrigin(start, from)) {
+                continue;
+            }
+            if (match != 0) {
+                return 0;
+            }
+            match = candidate;
+        }
+        return match;
+    }
+
+    private static boolean matchesOrigin(int square, String origin) {
+        for (char c : origin.toCharArray()) {
+            if (c >= 'a' && c <= 'h' && Bitboards.column(square) != c - 'a' + 1) {
+                return false;
+            }
+            if (c >= '1' && c <= '8' && Bitboards.row(square) != c - '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ChessPiece.PieceType pieceType(char c) {
+        return switch (c) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            default -> null;
+        };
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: java chess.engine.OpeningBookBuilder <book file> <pgn file>...");
+            return;
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        for (int i = 1; i < args.length; i++) {
+            builder.addPgn(Files.readString(Path.of(args[i])));
+        }
+        builder.write(Path.of(args[0]));
+        System.out.printf("%d games, %d entries written to %s%n",
+                builder.games(), OpeningBook.open(Path.of(args[0])).size(), args[0]);
+    }
+}
@@ -0,0 +1,157 @@
+package chess.engine;
+
+import chess.ChessGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lazy SMP: several threads search the same root independently, sharing only a
+ * {@link TranspositionTable}.
+ * <p>
+ * The calling thread runs the main search. Each helper runs its own {@link Search} on a
+ * pool thread, starting one ply deeper on every other helper so the threads spread over
+ * different depths, and feeds what it finds into the shared table. The search ends when
+ * the main thread finishes or {@link #stop()} is called, and the deepest completed
+ * result of any thread is returned.
+ * <p>
+ * One search runs at a time; concurrent calls to {@link #search} wait their turn.
+ */
+public class ParallelSearch implements AutoCloseable {
+
+    private final int threads;
+    private final TranspositionTable table;
+    private final ExecutorService helpers;
+
+    private volatile Tablebases tablebases;
+    private volatile AtomicBoolean stopFlag = new AtomicBoolean();
+    private volatile List<SearchResult> threadResults = List.of();
+
+    /**
+     * @param threads total number of search threads, including the caller's
+     * @param table   the table the threads share
+     */
+    public ParallelSearch(int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("a search needs at least one thread");
+        }
+        this.threads = threads;
+        this.table = table;
+        this.helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public ParallelSearch(int threads) {
+        this(threads, new TranspositionTable(Search.DEFAULT_TABLE_MB * threads));
+    }
+
+    /**
+     * @param tablebases tables every thread consults for few-piece positions, or null for none
+     */
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        return search(game, limits, new AtomicBoolean());
+    }
+
+    /**
+     * @param stop stops this search when set, even if that happens before it has started
+     */
+    public synchronized SearchResult search(ChessGame game, SearchLimits limits, AtomicBoolean stop) {
+        stopFlag = stop;
+        table.newSearch();
+
+        List<Future<SearchResult>> futures = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            Search helper = newSearch(game, stop);
+            int firstDepth = 1 + i % 2;
+            futures.add(helpers.submit(() -> helper.search(limits, firstDepth)));
+        }
+
+        SearchResult main;
+        try {
+            main = newSearch(game, stop).search(limits, 1);
+        }
+        finally {
+            stop.set(true);
+        }
+
+        List<SearchResult> results = new ArrayList<>(threads);
+        results.add(main);
+        for (Future<SearchResult> future : futures) {
+            results.add(await(future));
+        }
+        threadResults = List.copyOf(results);
+
+        SearchResult best = main;
+        long nodes = 0;
+        for (SearchResult result : results) {
+            nodes += result.nodes();
+            if (result.bestMove() != null && result.depth() > best.depth()) {
+                best = result;
+            }
+        }
+        return new SearchResult(best.bestMove(), best.score(), best.depth(), nodes, main.millis(),
+                best.principalVariation());
+    }
+
+    /**
+     * Stops the running search, if any. Safe to call from any thread.
+     */
+    public void stop() {
+        stopFlag.set(true);
+    }
+
+    /**
+     * @return the result of each thread in the last search, the caller's first; each
+     * carries that thread's node count and nodes per second
+     */
+    public List<SearchResult> threadResults() {
+        return threadResults;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    public TranspositionTable table() {
+        return table;
+    }
+
+    @Override
+    public void close() {
+        stop();
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+
+    private Search newSearch(ChessGame game, AtomicBoolean stop) {
+        Search search = new Search(game, table, stop);
+        search.setTablebases(tablebases);
+        return search;
+    }
+
+    private static SearchResult await(Future<SearchResult> future) {
+        try {
+            return future.get();
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("search helper failed", e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for search helper", e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package chess.engine;
+
+/**
+ * A small direct-mapped cache of pawn-structure scores keyed by
+ * {@link chess.ChessBoard#getPawnKey()}.
+ * <p>
+ * Most moves in a search leave the pawns alone, so nearly every node shares its pawn
+ * structure with its parent and the score can be looked up instead of recomputed. A
+ * table belongs to one thread: it is neither synchronized nor safe to share.
+ */
+public class PawnHashTable {
+
+    public static final int DEFAULT_ENTRIES = 1 << 14;
+    // returned by probe when the key is not stored; no pawn structure scores this low
+    public static final int MISS = Integer.MIN_VALUE;
+
+    private final long[] keys;
+    // an empty slot reads as key 0, the key of a board without pawns, whose score is 0 too
+    private final int[] scores;
+    private final int mask;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param entries number of slots, rounded down to a power of two
+     */
+    public PawnHashTable(int entries) {
+        if (entries < 1) {
+            throw new IllegalArgumentException("pawn hash table needs at least one entry");
+        }
+        int size = Integer.highestOneBit(entries);
+        this.keys = new long[size];
+        this.scores = new int[size];
+        this.mask = size - 1;
+    }
+
+    public PawnHashTable() {
+        this(DEFAULT_ENTRIES);
+    }
+
+    /**
+     * @return the score stored for the key, or {@link #MISS}
+     */
+    public int probe(long pawnKey) {
+        int index = (int) pawnKey & mask;
+        if (keys[index] == pawnKey) {
+            hits++;
+            return scores[index];
+        }
+        misses++;
+        return MISS;
+    }
+
+    public void store(long pawnKey, int score) {
+        int index = (int) pawnKey & mask;
+        keys[index] = pawnKey;
+        scores[index] = score;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    /**
+     * @return the fraction of lookups that hit, or 0 before the first lookup
+     */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public void resetCounters() {
+        hits = 0;
+        misses = 0;
+    }
+}
@@ -0,0 +1,446 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.PackedMove;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Chooses a move with negamax alpha-beta search and iterative deepening.
+ * <p>
+ * Each iteration searches one ply deeper than the last, trying the previous principal
+ * variation first. Moves are ordered by MVV-LVA for captures, then killer moves, then
+ * the history heuristic. Leaf positions are resolved with a captures-only quiescence
+ * search so the static evaluation is never taken in the middle of an exchange.
+ * <p>
+ * Results are kept in a {@link TranspositionTable}, which supplies cutoffs and the
+ * first move to try when a position is reached again. The table may be shared.
+ * <p>
+ * With {@link Tablebases} set, positions they cover below the root are scored exactly
+ * instead of being searched.
+ * <p>
+ * The search works on its own copy of the game, so the caller's game is never touched.
+ * A search is not thread-safe, apart from {@link #stop()}.
+ */
+public class Search {
+
+    public static final int MATE = 30000;
+    public static final int MAX_PLY = 64;
+    public static final int DEFAULT_TABLE_MB = 4;
+
+    private static final int INFINITY = 32000;
+    // how many nodes pass between checks of the clock and the stop flag
+    private static final int CHECK_INTERVAL = 1024;
+
+    private static final int PV_BONUS = 1 << 30;
+    private static final int CAPTURE_BONUS = 1 << 28;
+    private static final int KILLER_BONUS = 1 << 27;
+
+    private final ChessGame game;
+    private final TranspositionTable table;
+    private final Evaluator evaluator = new Evaluator();
+
+    private final int[][] moves = new int[MAX_PLY + 1][PackedMove.MAX_MOVES];
+    private final int[][] moveScores = new int[MAX_PLY + 1][PackedMove.MAX_MOVES];
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    // indexed by team color ordinal, from square, to square
+    private final int[][][] history = new int[2][64][64];
+    // position keys along the current line, for repetition detection
+    private final long[] keys = new long[MAX_PLY + 1];
+    private int[] previousPv = new int[0];
+
+    private final AtomicBoolean stopFlag;
+    private Tablebases tablebases;
+    private boolean aborted;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+
+    public Search(ChessGame game) {
+        this(game, new TranspositionTable(DEFAULT_TABLE_MB));
+    }
+
+    public Search(ChessGame game, TranspositionTable table) {
+        this(game, table, new AtomicBoolean());
+    }
+
+    /**
+     * @param stopFlag checked while searching; searches sharing a flag stop together
+     */
+    Search(ChessGame game, TranspositionTable table, AtomicBoolean stopFlag) {
+        this.game = game.copyGame();
+        this.table = table;
+        this.stopFlag = stopFlag;
+    }
+
+    /**
+     * Convenience for a one-off search of a game.
+     */
+    public static SearchResult bestMove(ChessGame game, SearchLimits limits) {
+        return new Search(game).search(limits);
+    }
+
+    /**
+     * @return the evaluator this search uses, e.g. to read its pawn cache counters
+     */
+    public Evaluator evaluator() {
+        return evaluator;
+    }
+
+    /**
+     * @param tablebases tables to consult for few-piece positions, or null for none
+     */
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    /**
+     * Asks a running search to return as soon as possible. Safe to call from any thread.
+     */
+    public void stop() {
+        stopFlag.set(true);
+    }
+
+    /**
+     * Searches until one of the limits is reached and returns the result of the deepest
+     * completed iteration. If the budget runs out before the first iteration completes,
+     * the best move found so far is returned.
+     */
+    public SearchResult search(SearchLimits limits) {
+        table.newSearch();
+        return search(limits, 1);
+    }
+
+    /**
+     * @param firstDepth the depth of the first iteration; helper threads of a parallel
+     *                   search start deeper so they do not all repeat the same work
+     */
+    SearchResult search(SearchLimits limits, int firstDepth) {
+        long start = System.nanoTime();
+        int maxDepth = Math.max(1, Math.min(limits.depth(), MAX_PLY));
+        nodeLimit = limits.nodes() > 0 ? limits.nodes() : Long.MAX_VALUE;
+        deadline = limits.millis() > 0 ? start + limits.millis() * 1_000_000 : Long.MAX_VALUE;
+        nodes = 0;
+        aborted = false;
+        previousPv = new int[0];
+        SearchResult result = null;
+        for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth; depth++) {
+            int score = negamax(depth, -INFINITY, INFINITY, 0);
+            if (aborted && result != null) {
+                break;
+            }
+            if (pvLength[0] == 0) {
+                // no legal moves, or aborted before the first one was searched
+                break;
+            }
+            previousPv = Arrays.copyOf(pv[0], pvLength[0]);
+            result = new SearchResult(PackedMove.toChessMove(previousPv[0]), aborted ? 0 : score,
+                    aborted ? 0 : depth, nodes, elapsedMillis(start), toChessMoves(previousPv));
+            if (aborted || result.isMate()) {
+                break;
+            }
+        }
+
+        if (result == null) {
+            ChessGame.TeamColor side = game.getTeamTurn();
+            int score = game.validMoves(side, moves[0]) == 0 && game.isInCheck(side) ? -MATE : 0;
+            result = new SearchResult(null, score, 0, nodes, elapsedMillis(start), List.of());
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes,
+                elapsedMillis(start), result.principalVariation());
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        pvLength[ply] = 0;
+        keys[ply] = game.getPositionKey();
+        if (ply > 0 && isRepetition(ply)) {
+            return 0;
+        }
+        if (ply > 0) {
+            int known = probeTablebases(ply);
+            if (known != Tablebases.UNKNOWN) {
+                return known;
+            }
+        }
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiescence(alpha, beta, ply);
+        }
+        if (countNode()) {
+            return 0;
+        }
+
+        int hashMove = 0;
+        long entry = table.probe(keys[ply]);
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER && score >= beta
+                        || bound == TranspositionTable.UPPER && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+
+        ChessGame.TeamColor side = game.getTeamTurn();
+        boolean inCheck = game.isInCheck(side);
+        int[] list = moves[ply];
+        int count = game.validMoves(side, list);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        int searchDepth = inCheck ? depth + 1 : depth;
+        scoreMoves(list, count, ply, hashMove);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = 0;
+        for (int i = 0; i < count; i++) {
+            int move = nextMove(list, moveScores[ply], i, count);
+            game.forceMove(move);
+            int score = -negamax(searchDepth - 1, -beta, -alpha, ply + 1);
+            game.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        if (isQuiet(move)) {
+                            storeKiller(ply, move);
+                            history[side.ordinal()][PackedMove.from(move)][PackedMove.to(move)] += depth * depth;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(keys[ply], bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Searches captures and promotions only, letting the side to move stand pat on the
+     * static evaluation. When in check every evasion is searched instead.
+     */
+    private int quiescence(int alpha, int beta, int ply) {
+        pvLength[ply] = 0;
+        if (countNode()) {
+            return 0;
+        }
+        ChessGame.TeamColor side = game.getTeamTurn();
+        if (ply >= MAX_PLY) {
+            return evaluator.evaluate(game.getBoard(), side);
+        }
+        if (ply > 0) {
+            int known = probeTablebases(ply);
+            if (known != Tablebases.UNKNOWN) {
+                return known;
+            }
+        }
+
+        boolean inCheck = game.isInCheck(side);
+        int[] list = moves[ply];
+        int count = game.validMoves(side, list);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+
+        int best = -INFINITY;
+        if (!inCheck) {
+            best = evaluator.evaluate(game.getBoard(), side);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+        scoreMoves(list, count, ply, 0);
+
+        for (int i = 0; i < count; i++) {
+            int move = nextMove(list, moveScores[ply], i, count);
+            if (!inCheck && isQuiet(move)) {
+                continue;
+            }
+            game.forceMove(move);
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            game.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return true if the search has run out of budget and should unwind
+     */
+    private boolean countNode() {
+        nodes++;
+        if (nodes >= nodeLimit) {
+            aborted = true;
+        }
+        else if (nodes % CHECK_INTERVAL == 0 && (stopFlag.get() || System.nanoTime() > deadline)) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    /**
+     * @return the exact score of the position, as seen from the root, or
+     * {@link Tablebases#UNKNOWN}
+     */
+    private int probeTablebases(int ply) {
+        if (tablebases == null || Long.bitCount(game.getBoard().getOccupied()) > 3) {
+            return Tablebases.UNKNOWN;
+        }
+        int score = tablebases.probe(game.getBoard(), game.getTeamTurn());
+        if (score == Tablebases.UNKNOWN) {
+            return score;
+        }
+        // tablebase mates count from this node, search mates from the root
+        return score > 0 ? score - ply : score < 0 ? score + ply : 0;
+    }
+
+    private boolean isRepetition(int ply) {
+        // a repeated position has the same side to move, so only every other ply can match
+        for (int i = ply - 2; i >= 0; i -= 2) {
+            if (keys[i] == keys[ply]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void scoreMoves(int[] list, int count, int ply, int hashMove) {
+        int[] scores = moveScores[ply];
+        int pvMove = ply < previousPv.length ? previousPv[ply] : 0;
+        int side = game.getTeamTurn().ordinal();
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            int from = PackedMove.from(move);
+            int to = PackedMove.to(move);
+            if (hashMove != 0 && PackedMove.sameMove(move, hashMove)) {
+                scores[i] = PV_BONUS + 1;
+            }
+            else if (pvMove != 0 && PackedMove.sameMove(move, pvMove)) {
+                scores[i] = PV_BONUS;
+            }
+            else if (!isQuiet(move)) {
+                // most valuable victim first, then least valuable attacker
+                ChessPiece victim = game.getBoard().getPiece(to);
+                int victimValue = victim == null ? 0 : Evaluator.pieceValue(victim.getPieceType());
+                int promotionValue = PackedMove.promotion(move) == null ? 0
+                        : Evaluator.pieceValue(PackedMove.promotion(move));
+                int attackerValue = Evaluator.pieceValue(game.getBoard().getPiece(from).getPieceType());
+                scores[i] = CAPTURE_BONUS + (victimValue + promotionValue) * 16 - attackerValue / 16;
+            }
+            else if (PackedMove.sameMove(move, killers[ply][0])) {
+                scores[i] = KILLER_BONUS + 1;
+            }
+            else if (PackedMove.sameMove(move, killers[ply][1])) {
+                scores[i] = KILLER_BONUS;
+            }
+            else {
+                scores[i] = Math.min(history[side][from][to], KILLER_BONUS - 1);
+            }
+        }
+    }
+
+    /**
+     * Selection sort step: swaps the best remaining move into position index and returns it.
+     */
+    private static int nextMove(int[] list, int[] scores, int index, int count) {
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = list[best];
+        list[best] = list[index];
+        list[index] = move;
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        return move;
+    }
+
+    private static boolean isQuiet(int move) {
+        return !PackedMove.isCapture(move) && PackedMove.promotion(move) == null;
+    }
+
+    private void storeKiller(int ply, int move) {
+        if (!PackedMove.sameMove(move, killers[ply][0])) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][0] = move;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+        pvLength[ply] = pvLength[ply + 1] + 1;
+    }
+
+    /**
+     * Mate scores are stored relative to the node rather than the root, so they stay
+     * correct when the position is reached at a different ply.
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private static List<ChessMove> toChessMoves(int[] line) {
+        List<ChessMove> result = new ArrayList<>(line.length);
+        for (int move : line) {
+            result.add(PackedMove.toChessMove(move));
+        }
+        return result;
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,19 @@
+package chess.engine;
+
+/**
+ * Bounds on a search. The search stops at whichever limit it reaches first.
+ *
+ * @param depth  deepest iteration to search, in plies
+ * @param millis wall-clock budget in milliseconds, or 0 for none
+ * @param nodes  node budget, or 0 for none
+ */
+public record SearchLimits(int depth, long millis, long nodes) {
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits time(long millis) {
+        return new SearchLimits(Search.MAX_PLY, millis, 0);
+    }
+}
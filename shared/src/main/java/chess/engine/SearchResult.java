@@ -0,0 +1,28 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * The outcome of a search.
+ *
+ * @param bestMove           the move to play, or null if the side to move has none
+ * @param score              centipawns from the side to move's point of view; mates are
+ *                           reported as {@link Search#MATE} minus the plies to mate
+ * @param depth              the deepest completed iteration
+ * @param nodes              positions visited
+ * @param millis             time spent
+ * @param principalVariation the expected line of play, starting with bestMove
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long millis,
+                           List<ChessMove> principalVariation) {
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    public long nodesPerSecond() {
+        return millis == 0 ? nodes * 1000 : nodes * 1000 / millis;
+    }
+}
@@ -0,0 +1,76 @@
+package chess.engine;
+
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One memory-mapped king, piece and king table written by {@link TablebaseGenerator}.
+ * <p>
+ * The file is an 8-byte magic number, the piece type ordinal and the bits per entry (an
+ * int each), then the entries packed into longs without straddling word boundaries. An
+ * entry holds plies to mate plus one, or 0 for a draw. Reads use absolute positions
+ * only, so a table can be shared by any number of threads.
+ */
+public final class Tablebase {
+
+    // "CHESSTB1"
+    static final long MAGIC = 0x4348455353544231L;
+    private static final int HEADER_BYTES = Long.BYTES + 2 * Integer.BYTES;
+
+    private final ChessPiece.PieceType pieceType;
+    private final MappedByteBuffer buffer;
+    private final int bits;
+    private final int perWord;
+    private final long mask;
+
+    private Tablebase(ChessPiece.PieceType pieceType, MappedByteBuffer buffer, int bits) {
+        this.pieceType = pieceType;
+        this.buffer = buffer;
+        this.bits = bits;
+        this.perWord = 64 / bits;
+        this.mask = (1L << bits) - 1;
+    }
+
+    /**
+     * @throws IOException if the file cannot be read or is not a tablebase
+     */
+    public static Tablebase open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException(String.format("not a tablebase: %s", path));
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int type = buffer.getInt(Long.BYTES);
+            int bits = buffer.getInt(Long.BYTES + Integer.BYTES);
+            if (buffer.getLong(0) != MAGIC || type < 0 || type >= ChessPiece.PieceType.values().length
+                    || bits < 1 || bits > 32) {
+                throw new IOException(String.format("not a tablebase: %s", path));
+            }
+            long words = (TablebaseGenerator.POSITIONS + 64 / bits - 1) / (64 / bits);
+            if (size != HEADER_BYTES + words * Long.BYTES) {
+                throw new IOException(String.format("truncated tablebase: %s", path));
+            }
+            return new Tablebase(ChessPiece.PieceType.values()[type], buffer, bits);
+        }
+    }
+
+    public ChessPiece.PieceType pieceType() {
+        return pieceType;
+    }
+
+    /**
+     * @param index a position index as described by {@link TablebaseGenerator}
+     * @return plies to mate, or -1 for a draw
+     */
+    public int pliesToMate(int index) {
+        long word = buffer.getLong(HEADER_BYTES + (index / perWord) * Long.BYTES);
+        int stored = (int) ((word >>> (index % perWord * bits)) & mask);
+        return stored - 1;
+    }
+}
@@ -0,0 +1,242 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Solves king and one piece against king by retrograde analysis.
+ * <p>
+ * Positions are indexed as seen by the side with the extra piece, the "strong" side,
+ * playing up the board: {@code toMove << 18 | strongKing << 12 | piece << 6 | weakKing},
+ * where toMove is 0 when the strong side is to move. The weak side can never win, so a
+ * position is either a forced mate, stored as the number of plies to mate, or a draw.
+ * <p>
+ * Solving runs in passes: pass n finds every position mated in exactly n plies, starting
+ * from the checkmates. A strong-side position is mate in n if some move reaches a mate
+ * in n-1; a weak-side position is mate in n if every move reaches a mate in fewer than n
+ * plies and at least one takes n-1. Whatever is unsolved when a pass finds nothing new
+ * is a draw. Pawn promotions look up the solved queen and rook tables.
+ */
+final class TablebaseGenerator {
+
+    static final int POSITIONS = 2 << 18;
+    static final int DRAW = -1;
+    static final int ILLEGAL = -2;
+    // the only child of a checkmated position
+    private static final int MATED = -3;
+
+    private static final int STRONG = 0;
+    private static final int WEAK = 1;
+    private static final ChessGame.TeamColor WHITE = ChessGame.TeamColor.WHITE;
+
+    private TablebaseGenerator() {
+    }
+
+    static int index(int toMove, int strongKing, int piece, int weakKing) {
+        return toMove << 18 | strongKing << 12 | piece << 6 | weakKing;
+    }
+
+    /**
+     * @param queen the solved queen table, needed for pawn promotions; may be null otherwise
+     * @param rook  the solved rook table, needed for pawn promotions; may be null otherwise
+     * @return plies to mate for each index, or {@link #DRAW} or {@link #ILLEGAL}
+     */
+    static int[] generate(ChessPiece.PieceType type, int[] queen, int[] rook) {
+        int[] values = new int[POSITIONS];
+        Arrays.fill(values, DRAW);
+        for (int index = 0; index < POSITIONS; index++) {
+            if (!isLegal(type, index)) {
+                values[index] = ILLEGAL;
+            }
+        }
+
+        // promotions reach into the other tables, so a pass that finds nothing only ends
+        // the search once it is past anything a promotion could lead to
+        int promotionPlies = Math.max(longest(queen), longest(rook)) + 1;
+        int[] children = new int[64];
+        for (int plies = 0; ; plies++) {
+            boolean found = false;
+            for (int index = 0; index < POSITIONS; index++) {
+                if (values[index] != DRAW) {
+                    continue;
+                }
+                int count = children(type, index, children, queen, rook, values);
+                if (matesIn(index, plies, children, count)) {
+                    values[index] = plies;
+                    found = true;
+                }
+            }
+            if (!found && plies > promotionPlies) {
+                return values;
+            }
+        }
+    }
+
+    private static int longest(int[] values) {
+        int longest = -1;
+        if (values != null) {
+            for (int value : values) {
+                longest = Math.max(longest, value);
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * children holds, for each legal move, the child's value as solved so far (values set
+     * in the current pass are plies and never below it, so they cannot affect the result)
+     */
+    private static boolean matesIn(int index, int plies, int[] children, int count) {
+        if (index >>> 18 == STRONG) {
+            if (plies == 0) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                if (children[i] == plies - 1) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (count == 0) {
+            // stalemate
+            return false;
+        }
+        if (children[0] == MATED) {
+            return plies == 0;
+        }
+        int longest = -1;
+        for (int i = 0; i < count; i++) {
+            if (children[i] < 0 || children[i] >= plies) {
+                return false;
+            }
+            longest = Math.max(longest, children[i]);
+        }
+        return longest == plies - 1;
+    }
+
+    /**
+     * Fills children with the value of the position after each legal move. A move that
+     * draws outright (capturing the piece, promoting to a bishop or knight) counts as
+     * {@link #DRAW}. A weak king that is checkmated gets the single entry {@link #MATED}.
+     *
+     * @return the number of entries
+     */
+    private static int children(ChessPiece.PieceType type, int index, int[] children, int[] queen, int[] rook,
+                                int[] values) {
+        int toMove = index >>> 18;
+        int strongKing = (index >>> 12) & 63;
+        int piece = (index >>> 6) & 63;
+        int weakKing = index & 63;
+        int count = 0;
+
+        if (toMove == STRONG) {
+            long kingTargets = Bitboards.kingAttacks(strongKing) & ~Bitboards.bit(piece)
+                    & ~Bitboards.kingAttacks(weakKing);
+            for (long targets = kingTargets; targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                children[count++] = values[index(WEAK, to, piece, weakKing)];
+            }
+            if (type == ChessPiece.PieceType.PAWN) {
+                long occupied = Bitboards.bit(strongKing) | Bitboards.bit(weakKing);
+                int push = piece + 8;
+                if ((occupied & Bitboards.bit(push)) == 0) {
+                    children[count++] = pawnChild(push, strongKing, weakKing, queen, rook, values);
+                    int doublePush = piece + 16;
+                    if (Bitboards.row(piece) == 2 && (occupied & Bitboards.bit(doublePush)) == 0) {
+                        children[count++] = values[index(WEAK, strongKing, doublePush, weakKing)];
+                    }
+                }
+            }
+            else {
+                long occupied = Bitboards.bit(strongKing) | Bitboards.bit(piece) | Bitboards.bit(weakKing);
+                long targets = ChessPiece.attacks(WHITE, type, piece, occupied)
+                        & ~Bitboards.bit(strongKing) & ~Bitboards.bit(weakKing);
+                for (; targets != 0; targets &= targets - 1) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    children[count++] = values[index(WEAK, strongKing, to, weakKing)];
+                }
+            }
+            return count;
+        }
+
+        // the weak king's own square does not block the piece's lines
+        long occupied = Bitboards.bit(strongKing) | Bitboards.bit(piece);
+        long attacked = Bitboards.kingAttacks(strongKing) | ChessPiece.attacks(WHITE, type, piece, occupied);
+        long targets = Bitboards.kingAttacks(weakKing) & ~attacked & ~Bitboards.bit(strongKing);
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            // taking the piece leaves bare kings
+            children[count++] = to == piece ? DRAW : values[index(STRONG, strongKing, piece, to)];
+        }
+        if (count == 0 && (attacked & Bitboards.bit(weakKing)) != 0) {
+            children[count++] = MATED;
+        }
+        return count;
+    }
+
+    private static int pawnChild(int to, int strongKing, int weakKing, int[] queen, int[] rook, int[] values) {
+        if (Bitboards.row(to) != 8) {
+            return values[index(WEAK, strongKing, to, weakKing)];
+        }
+        // under-promotion to a bishop or knight only draws, so only queen and rook count
+        int best = DRAW;
+        for (int[] table : new int[][]{queen, rook}) {
+            int value = table[index(WEAK, strongKing, to, weakKing)];
+            if (value >= 0 && (best < 0 || value < best)) {
+                best = value;
+            }
+        }
+        return best;
+    }
+
+    private static boolean isLegal(ChessPiece.PieceType type, int index) {
+        int toMove = index >>> 18;
+        int strongKing = (index >>> 12) & 63;
+        int piece = (index >>> 6) & 63;
+        int weakKing = index & 63;
+        if (strongKing == piece || strongKing == weakKing || piece == weakKing) {
+            return false;
+        }
+        if ((Bitboards.kingAttacks(strongKing) & Bitboards.bit(weakKing)) != 0) {
+            return false;
+        }
+        if (type == ChessPiece.PieceType.PAWN && (Bitboards.row(piece) == 1 || Bitboards.row(piece) == 8)) {
+            return false;
+        }
+        // the side not to move may not be in check
+        long occupied = Bitboards.bit(strongKing) | Bitboards.bit(piece) | Bitboards.bit(weakKing);
+        return toMove == WEAK || (ChessPiece.attacks(WHITE, type, piece, occupied) & Bitboards.bit(weakKing)) == 0;
+    }
+
+    /**
+     * Writes solved values bit-packed, as read by {@link Tablebase}.
+     */
+    static void write(Path path, ChessPiece.PieceType type, int[] values) throws IOException {
+        // stored as plies + 1, with 0 for draws and illegal positions
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, longest(values) + 1));
+        int perWord = 64 / bits;
+        long[] words = new long[(POSITIONS + perWord - 1) / perWord];
+        for (int index = 0; index < POSITIONS; index++) {
+            long stored = values[index] < 0 ? 0 : values[index] + 1;
+            words[index / perWord] |= stored << (index % perWord * bits);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeLong(Tablebase.MAGIC);
+            out.writeInt(type.ordinal());
+            out.writeInt(bits);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+    }
+}
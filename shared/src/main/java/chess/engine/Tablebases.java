@@ -0,0 +1,132 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Exact results for positions with a lone king against king and queen, rook or pawn.
+ * <p>
+ * A probe returns a score in the same units as {@link Search}: {@link Search#MATE} minus
+ * the plies to mate when the side to move wins, its negation when it loses, and 0 for a
+ * draw. Positions the loaded tables do not cover return {@link #UNKNOWN}. Bare kings are
+ * always a draw, with or without tables.
+ * <p>
+ * Run {@code java chess.engine.Tablebases <directory>} to generate the tables; all three
+ * take a few seconds to solve.
+ */
+public final class Tablebases {
+
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private static final ChessPiece.PieceType[] SOLVED = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.PAWN
+    };
+
+    // by piece type ordinal; null where no table is loaded
+    private final Tablebase[] tables = new Tablebase[6];
+
+    private Tablebases() {
+    }
+
+    /**
+     * Loads whichever of KQK, KRK and KPK exist in the directory. A missing directory
+     * gives an empty set, which still knows that bare kings draw.
+     *
+     * @throws IOException if a table file exists but cannot be read
+     */
+    public static Tablebases open(Path directory) throws IOException {
+        Tablebases tablebases = new Tablebases();
+        for (ChessPiece.PieceType type : SOLVED) {
+            Path path = directory.resolve(fileName(type));
+            if (Files.isRegularFile(path)) {
+                tablebases.tables[type.ordinal()] = Tablebase.open(path);
+            }
+        }
+        return tablebases;
+    }
+
+    /**
+     * Solves KQK, KRK and KPK and writes them to the directory.
+     */
+    public static void generate(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        int[] queen = TablebaseGenerator.generate(ChessPiece.PieceType.QUEEN, null, null);
+        TablebaseGenerator.write(directory.resolve(fileName(ChessPiece.PieceType.QUEEN)), ChessPiece.PieceType.QUEEN, queen);
+        int[] rook = TablebaseGenerator.generate(ChessPiece.PieceType.ROOK, null, null);
+        TablebaseGenerator.write(directory.resolve(fileName(ChessPiece.PieceType.ROOK)), ChessPiece.PieceType.ROOK, rook);
+        int[] pawn = TablebaseGenerator.generate(ChessPiece.PieceType.PAWN, queen, rook);
+        TablebaseGenerator.write(directory.resolve(fileName(ChessPiece.PieceType.PAWN)), ChessPiece.PieceType.PAWN, pawn);
+    }
+
+    public int probe(ChessGame game) {
+        return probe(game.getBoard(), game.getTeamTurn());
+    }
+
+    /**
+     * @return the score for the side to move, or {@link #UNKNOWN}
+     */
+    public int probe(ChessBoard board, ChessGame.TeamColor toMove) {
+        long occupied = board.getOccupied();
+        int pieces = Long.bitCount(occupied);
+        if (pieces > 3) {
+            return UNKNOWN;
+        }
+        int whiteKing = board.getKingSquare(ChessGame.TeamColor.WHITE);
+        int blackKing = board.getKingSquare(ChessGame.TeamColor.BLACK);
+        if (whiteKing < 0 || blackKing < 0) {
+            return UNKNOWN;
+        }
+        if (pieces == 2) {
+            return 0;
+        }
+
+        int square = Long.numberOfTrailingZeros(occupied & ~Bitboards.bit(whiteKing) & ~Bitboards.bit(blackKing));
+        ChessPiece piece = board.getPiece(square);
+        Tablebase table = tables[piece.getPieceType().ordinal()];
+        if (table == null) {
+            return UNKNOWN;
+        }
+
+        // tables are built with the strong side as white playing up the board
+        ChessGame.TeamColor strong = piece.getTeamColor();
+        int flip = strong == ChessGame.TeamColor.WHITE ? 0 : 56;
+        int strongKing = board.getKingSquare(strong) ^ flip;
+        int weakKing = board.getKingSquare(strong == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE) ^ flip;
+        int side = toMove == strong ? 0 : 1;
+        int plies = table.pliesToMate(TablebaseGenerator.index(side, strongKing, square ^ flip, weakKing));
+        if (plies < 0) {
+            return 0;
+        }
+        return side == 0 ? Search.MATE - plies : -(Search.MATE - plies);
+    }
+
+    public boolean covers(ChessPiece.PieceType type) {
+        return tables[type.ordinal()] != null;
+    }
+
+    private static String fileName(ChessPiece.PieceType type) {
+        return switch (type) {
+            case QUEEN -> "KQK.tb";
+            case ROOK -> "KRK.tb";
+            case PAWN -> "KPK.tb";
+            default -> throw new IllegalArgumentException(String.format("no tablebase for %s", type));
+        };
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: java chess.engine.Tablebases <directory>");
+            return;
+        }
+        long start = System.nanoTime();
+        generate(Path.of(args[0]));
+        System.out.printf("tablebases written to %s in %.1f s%n", args[0], (System.nanoTime() - start) / 1e9);
+    }
+}
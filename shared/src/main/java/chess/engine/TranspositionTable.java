@@ -0,0 +1,155 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of search results, keyed by {@link chess.ChessGame#getPositionKey()}.
+ * <p>
+ * Each entry is two longs: the position key XORed with the data word, and the data word
+ * itself. A reader accepts an entry only if XORing the two gives back its key, so a slot
+ * half-written by another thread simply reads as a miss. That lets any number of search
+ * threads share one table without locks.
+ * <p>
+ * The data word packs, from the low bits up: the move (15 bits, as in {@link chess.PackedMove}
+ * without flags), the score (16 bits, signed), the depth (8 bits), the bound (2 bits) and
+ * the generation of the search that stored it (8 bits).
+ */
+public final class TranspositionTable {
+
+    public static final int UPPER = 1;
+    public static final int LOWER = 2;
+    public static final int EXACT = 3;
+
+    /**
+     * Decides whether a new entry may overwrite the one already in its slot.
+     */
+    public enum Replacement {
+        /** Always overwrite. */
+        ALWAYS,
+        /** Overwrite unless the existing entry was searched deeper. */
+        DEPTH_PREFERRED,
+        /** Like DEPTH_PREFERRED, but entries left over from earlier searches are always overwritten. */
+        AGED
+    }
+
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+    private static final long MOVE_MASK = (1 << 15) - 1;
+
+    private final long[] table;
+    private final int mask;
+    private final Replacement replacement;
+    private volatile int generation;
+
+    /**
+     * @param megabytes   upper bound on the table's size; the entry count is rounded down
+     *                    to a power of two
+     * @param replacement the replacement policy
+     */
+    public TranspositionTable(int megabytes, Replacement replacement) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("table size must be at least 1 MB");
+        }
+        long entries = Long.highestOneBit((long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+        // keep the backing array within the limit on Java array length
+        entries = Math.min(entries, 1 << 29);
+        this.table = new long[(int) entries * 2];
+        this.mask = (int) entries - 1;
+        this.replacement = replacement;
+    }
+
+    public TranspositionTable(int megabytes) {
+        this(megabytes, Replacement.AGED);
+    }
+
+    /**
+     * @return the stored data word for the key, or 0 if there is none
+     */
+    public long probe(long key) {
+        int index = index(key);
+        long data = table[index + 1];
+        return (table[index] ^ data) == key ? data : 0L;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = index(key);
+        long oldData = table[index + 1];
+        long oldKey = table[index] ^ oldData;
+        if (oldData != 0 && oldKey != key && !replaces(oldData, depth)) {
+            return;
+        }
+        if (move == 0 && oldKey == key) {
+            // keep the best move a shallower or failed-low search could not find
+            move = move(oldData);
+        }
+        long data = (move & MOVE_MASK)
+                | (score & 0xFFFFL) << 16
+                | (long) (depth & 0xFF) << 32
+                | (long) bound << 40
+                | (long) (generation & 0xFF) << 42;
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    /**
+     * Marks the start of a new search, so the {@link Replacement#AGED} policy can tell
+     * fresh entries from stale ones.
+     */
+    public void newSearch() {
+        generation++;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /**
+     * @return how many of the first thousand slots are in use by the current search, in permille
+     */
+    public int hashfull() {
+        int used = 0;
+        int sample = Math.min(1000, mask + 1);
+        for (int i = 0; i < sample; i++) {
+            long data = table[2 * i + 1];
+            if (data != 0 && generation(data) == (generation & 0xFF)) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public static int move(long data) {
+        return (int) (data & MOVE_MASK);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> 40) & 3;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> 42) & 0xFF;
+    }
+
+    private boolean replaces(long oldData, int depth) {
+        return switch (replacement) {
+            case ALWAYS -> true;
+            case DEPTH_PREFERRED -> depth >= depth(oldData);
+            case AGED -> generation(oldData) != (generation & 0xFF) || depth >= depth(oldData);
+        };
+    }
+
+    private int index(long key) {
+        return ((int) key & mask) << 1;
+    }
+}
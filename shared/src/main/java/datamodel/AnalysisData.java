@@ -0,0 +1,6 @@
+package datamodel;
+
+import java.util.List;
+
+public record AnalysisData(Integer gameID, String bestMove, Integer score, Integer depth, Long nodes, List<String> line) {
+}
@@ -0,0 +1,39 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameCodecTest {
+
+    @Test
+    void roundTrip() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        assertEquals(Fen.of(game), Fen.of(GameCodec.decode(GameCodec.encode(game))));
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        ChessGame decoded = GameCodec.decode(GameCodec.encode(game));
+        assertEquals(Fen.of(game), Fen.of(decoded));
+        assertEquals(ChessGame.TeamColor.BLACK, decoded.getTeamTurn());
+        assertEquals(game.getPositionKey(), decoded.getPositionKey());
+        assertFalse(decoded.checkGameFinished());
+
+        ChessGame finished = Fen.load("7k/6Q1/6K1/8/8/8/8/8 b");
+        finished.setGameFinished(true);
+        decoded = GameCodec.decode(GameCodec.encode(finished));
+        assertEquals(Fen.of(finished), Fen.of(decoded));
+        assertTrue(decoded.checkGameFinished());
+        assertTrue(decoded.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void rejectsBadInput() {
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(new byte[10]));
+        byte[] bytes = GameCodec.encode(new ChessGame());
+        bytes[0] = 0;
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(bytes));
+        byte[] badPiece = GameCodec.encode(new ChessGame());
+        badPiece[20] = (byte) 0xFF;
+        assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(badPiece));
+    }
+}
@@ -0,0 +1,77 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameStatusTest {
+
+    private static GameStatus fresh(ChessGame game, ChessGame.TeamColor color) {
+        ChessGame copy = ChessGame.of(game.getBoard().copy(), game.getTeamTurn());
+        return copy.getStatus(color);
+    }
+
+    @Test
+    void recomputedAfterMakeMove() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        GameStatus before = game.getStatus(ChessGame.TeamColor.WHITE);
+        assertSame(before, game.getStatus(ChessGame.TeamColor.WHITE));
+        assertEquals(20, before.validMoveCount());
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        GameStatus after = game.getStatus(ChessGame.TeamColor.WHITE);
+        assertNotSame(before, after);
+        assertEquals(fresh(game, ChessGame.TeamColor.WHITE), after);
+        assertEquals(fresh(game, ChessGame.TeamColor.BLACK), game.getStatus(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void recomputedAfterSetBoard() {
+        ChessGame game = new ChessGame();
+        assertFalse(game.getStatus(ChessGame.TeamColor.BLACK).checkmate());
+
+        game.setBoard(Fen.load("7k/6Q1/6K1/8/8/8/8/8 b").getBoard());
+        assertTrue(game.getStatus(ChessGame.TeamColor.BLACK).checkmate());
+        assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void recomputedAfterSetTeamTurn() {
+        ChessGame game = Fen.load("4k3/8/8/8/8/8/4r3/4K3 w");
+        GameStatus white = game.getStatus(ChessGame.TeamColor.WHITE);
+        GameStatus black = game.getStatus(ChessGame.TeamColor.BLACK);
+
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertEquals(fresh(game, ChessGame.TeamColor.WHITE), game.getStatus(ChessGame.TeamColor.WHITE));
+        assertEquals(fresh(game, ChessGame.TeamColor.BLACK), game.getStatus(ChessGame.TeamColor.BLACK));
+        assertEquals(white, game.getStatus(ChessGame.TeamColor.WHITE));
+        assertEquals(black, game.getStatus(ChessGame.TeamColor.BLACK));
+        assertTrue(game.isInCheck(ChessGame.TeamColor.WHITE));
+        assertFalse(game.isInCheck(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    void notSharedBetweenEqualBoards() {
+        ChessGame game = new ChessGame();
+        ChessBoard original = game.getBoard();
+        GameStatus status = game.getStatus(ChessGame.TeamColor.WHITE);
+
+        ChessBoard copy = original.copy();
+        assertEquals(original, copy);
+        assertEquals(original.getZobristKey(), copy.getZobristKey());
+        game.setBoard(copy);
+        GameStatus onCopy = game.getStatus(ChessGame.TeamColor.WHITE);
+        assertNotSame(status, onCopy);
+        assertEquals(status, onCopy);
+
+        // changing the copy behind the game's back must not bring back either cached status
+        copy.emptyPiece(new ChessPosition(2, 5));
+        GameStatus changed = game.getStatus(ChessGame.TeamColor.WHITE);
+        assertNotSame(onCopy, changed);
+        assertEquals(fresh(game, ChessGame.TeamColor.WHITE), changed);
+
+        game.setBoard(original);
+        assertNotSame(status, game.getStatus(ChessGame.TeamColor.WHITE));
+        assertEquals(20, game.getStatus(ChessGame.TeamColor.WHITE).validMoveCount());
+    }
+}
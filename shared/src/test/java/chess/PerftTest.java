@@ -0,0 +1,113 @@
+package chess;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Published perft counts for positions where castling and en passant, which ChessGame
+ * does not model, cannot occur within the searched depth.
+ */
+class PerftTest {
+
+    @Test
+    void startPosition() {
+        ChessGame game = new ChessGame();
+        assertEquals(20, Perft.perft(game, 1));
+        assertEquals(400, Perft.perft(game, 2));
+        assertEquals(8902, Perft.perft(game, 3));
+        assertEquals(197281, Perft.perft(game, 4));
+    }
+
+    @Test
+    void startPositionLeftUnchanged() {
+        ChessGame game = new ChessGame();
+        Perft.perft(game, 3);
+        assertEquals(new ChessGame(), game);
+        assertEquals(new ChessGame().getPositionKey(), game.getPositionKey());
+    }
+
+    @Test
+    void positionKeyFollowsMoves() {
+        ChessGame game = Fen.load("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10");
+        int[] moves = new int[PackedMove.MAX_MOVES];
+        int count = game.validMoves(game.getTeamTurn(), moves);
+        for (int i = 0; i < count; i++) {
+            game.forceMove(moves[i]);
+            // a key maintained move by move must match one built from scratch
+            ChessGame rebuilt = Fen.load(Fen.of(game));
+            assertEquals(rebuilt.getPositionKey(), game.getPositionKey());
+            assertEquals(rebuilt.getBoard().getPieceSquareScore(), game.getBoard().getPieceSquareScore());
+            game.unmakeMove();
+        }
+    }
+
+    @Test
+    void divideSumsToPerft() {
+        ChessGame game = new ChessGame();
+        Map<String, Long> counts = Perft.divide(game, 3);
+        assertEquals(20, counts.size());
+        assertEquals(600, counts.get("e2e4"));
+        assertEquals(8902, counts.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void middlegame() {
+        ChessGame game = Fen.load("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10");
+        assertEquals(46, Perft.perft(game, 1));
+        assertEquals(2079, Perft.perft(game, 2));
+        assertEquals(89890, Perft.perft(game, 3));
+    }
+
+    @Test
+    void endgameRookAndPawns() {
+        ChessGame game = Fen.load("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        assertEquals(14, Perft.perft(game, 1));
+        assertEquals(191, Perft.perft(game, 2));
+    }
+
+    @Test
+    void promotions() {
+        ChessGame game = Fen.load("n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1");
+        assertEquals(24, Perft.perft(game, 1));
+        assertEquals(496, Perft.perft(game, 2));
+        assertEquals(9483, Perft.perft(game, 3));
+    }
+
+    @Test
+    void promoteOutOfCheck() {
+        assertEquals(3821001, Perft.perft(Fen.load("2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1"), 6));
+    }
+
+    @Test
+    void discoveredAndDoubleCheck() {
+        assertEquals(23527, Perft.perft(Fen.load("8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1"), 4));
+        assertEquals(1004658, Perft.perft(Fen.load("8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1"), 5));
+    }
+
+    @Test
+    void promotionsAndStalemates() {
+        assertEquals(217342, Perft.perft(Fen.load("4k3/1P6/8/8/8/8/K7/8 w - - 0 1"), 6));
+        assertEquals(92683, Perft.perft(Fen.load("8/P1k5/K7/8/8/8/8/8 w - - 0 1"), 6));
+        assertEquals(2217, Perft.perft(Fen.load("K1k5/8/P7/8/8/8/8/8 w - - 0 1"), 6));
+    }
+
+    @Test
+    void parallelMatchesSequential() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        ChessGame game = Fen.load("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10");
+        assertEquals(Perft.perft(game, 4), ParallelPerft.perft(game, 4, pool));
+        assertEquals(Perft.divide(new ChessGame(), 3), ParallelPerft.divide(new ChessGame(), 3, pool));
+        pool.shutdown();
+    }
+
+    @Test
+    void fenRoundTrip() {
+        assertEquals(Fen.START, Fen.of(new ChessGame()));
+        String fen = "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1";
+        assertEquals(fen, Fen.of(Fen.load(fen)));
+    }
+}
@@ -0,0 +1,87 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Fen;
+import chess.PackedMove;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvaluatorTest {
+
+    private final Evaluator evaluator = new Evaluator();
+
+    @Test
+    void startPositionIsLevel() {
+        ChessGame game = new ChessGame();
+        assertEquals(0, evaluator.evaluate(game.getBoard(), ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    void mirroredPositionScoresTheSameForEachSide() {
+        ChessGame white = Fen.load("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/4P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10");
+        ChessGame black = Fen.load("r4rk1/1pp1qppp/p1np1n2/4p3/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 b - - 0 10");
+        assertEquals(evaluator.evaluate(white.getBoard(), ChessGame.TeamColor.WHITE),
+                evaluator.evaluate(mirror(white).getBoard(), ChessGame.TeamColor.BLACK));
+        assertEquals(evaluator.evaluate(black.getBoard(), ChessGame.TeamColor.BLACK),
+                evaluator.evaluate(mirror(black).getBoard(), ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    void pawnStructure() {
+        // white: doubled, isolated c-pawns, both passed; black: an isolated passed pawn on a3
+        ChessGame game = Fen.load("4k3/8/8/8/2P5/p1P5/8/4K3 w - - 0 1");
+        int white = 2 * Evaluator.ISOLATED_PAWN + Evaluator.DOUBLED_PAWN
+                + Evaluator.PASSED_PAWN[4] + Evaluator.PASSED_PAWN[3];
+        int black = Evaluator.ISOLATED_PAWN + Evaluator.PASSED_PAWN[6];
+        int expected = white - black;
+        assertEquals(expected, evaluator.pawnStructure(game.getBoard()));
+    }
+
+    @Test
+    void pawnKeyIgnoresOtherPieces() {
+        ChessGame game = Fen.load("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10");
+        long pawnKey = game.getBoard().getPawnKey();
+        int[] moves = new int[PackedMove.MAX_MOVES];
+        int count = game.validMoves(game.getTeamTurn(), moves);
+        for (int i = 0; i < count; i++) {
+            ChessPiece moved = game.getBoard().getPiece(PackedMove.from(moves[i]));
+            ChessPiece captured = game.getBoard().getPiece(PackedMove.to(moves[i]));
+            game.forceMove(moves[i]);
+            long rebuilt = Fen.load(Fen.of(game)).getBoard().getPawnKey();
+            assertEquals(rebuilt, game.getBoard().getPawnKey());
+            boolean touchesPawns = moved.getPieceType() == ChessPiece.PieceType.PAWN
+                    || captured != null && captured.getPieceType() == ChessPiece.PieceType.PAWN;
+            assertEquals(!touchesPawns, pawnKey == game.getBoard().getPawnKey());
+            game.unmakeMove();
+        }
+    }
+
+    @Test
+    void pawnTableCountsHits() {
+        Evaluator cached = new Evaluator(new PawnHashTable(64));
+        ChessGame game = new ChessGame();
+        int first = cached.evaluate(game.getBoard(), ChessGame.TeamColor.WHITE);
+        int second = cached.evaluate(game.getBoard(), ChessGame.TeamColor.WHITE);
+        assertEquals(first, second);
+        assertEquals(1, cached.pawnTable().hits());
+        assertEquals(1, cached.pawnTable().misses());
+        assertEquals(0.5, cached.pawnTable().hitRate());
+    }
+
+    private static ChessGame mirror(ChessGame game) {
+        String[] fields = Fen.of(game).split(" ");
+        String[] ranks = fields[0].split("/");
+        StringBuilder placement = new StringBuilder();
+        for (int i = ranks.length - 1; i >= 0; i--) {
+            for (char c : ranks[i].toCharArray()) {
+                placement.append(Character.isUpperCase(c) ? Character.toLowerCase(c) : Character.toUpperCase(c));
+            }
+            if (i > 0) {
+                placement.append('/');
+            }
+        }
+        return Fen.load(placement + (fields[1].equals("w") ? " b" : " w"));
+    }
+}
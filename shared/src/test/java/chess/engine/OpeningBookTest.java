@@ -0,0 +1,98 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.PackedMove;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpeningBookTest {
+
+    private static final String PGN = """
+            [Event "one"]
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 {main line} Nc6 (2... d6 3. d4) 3. Bb5 a6 4. Ba4 Nf6 5. O-O Be7 1-0
+
+            [Event "two"]
+            1. e4 c5 2. Nf3 d6 3. d4 cxd4 4. Nxd4 Nf6 5. Nc3 a6 1/2-1/2
+
+            1. d4 d5 2. c4 e6 *
+            """;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void buildAndProbe() throws IOException {
+        OpeningBook book = build(PGN);
+        ChessGame game = new ChessGame();
+        assertEquals("e2e4", PackedMove.toNotation(book.bestMove(game)));
+        int first = book.find(game.getPositionKey());
+        assertEquals(2, book.weight(first));
+        assertEquals("d2d4", PackedMove.toNotation(book.move(first + 1)));
+        assertEquals(1, book.weight(first + 1));
+
+        // the variation in game one is skipped, so only Nc6 follows 1. e4 e5 2. Nf3
+        play(game, "e2e4", "e7e5", "g1f3");
+        assertEquals("b8c6", PackedMove.toNotation(book.bestMove(game)));
+
+        // castling ends game one, so nothing is recorded after 5. O-O
+        play(game, "b8c6", "f1b5", "a7a6", "b5a4", "g8f6");
+        assertEquals(0, book.bestMove(game));
+        assertEquals(-1, book.find(Fen.load("8/8/8/8/8/8/8/K6k w - - 0 1").getPositionKey()));
+    }
+
+    @Test
+    void pickMoveFollowsWeights() throws IOException {
+        OpeningBook book = build(PGN);
+        ChessGame game = new ChessGame();
+        assertEquals("e2e4", PackedMove.toNotation(book.pickMove(game, 0)));
+        assertEquals("e2e4", PackedMove.toNotation(book.pickMove(game, 1)));
+        assertEquals("d2d4", PackedMove.toNotation(book.pickMove(game, 2)));
+    }
+
+    @Test
+    void parsesAlgebraicNotation() {
+        ChessGame game = Fen.load("r3k2r/1P6/8/3N1N2/8/8/8/4K3 w - - 0 1");
+        int[] moves = new int[PackedMove.MAX_MOVES];
+        int count = game.validMoves(game.getTeamTurn(), moves);
+        assertEquals("d5e7", PackedMove.toNotation(OpeningBookBuilder.parseMove(game, "Nde7+", moves, count)));
+        assertEquals("b7a8n", PackedMove.toNotation(OpeningBookBuilder.parseMove(game, "bxa8=N", moves, count)));
+        assertEquals("b7b8q", PackedMove.toNotation(OpeningBookBuilder.parseMove(game, "b7b8q", moves, count)));
+        // two knights can reach e7
+        assertEquals(0, OpeningBookBuilder.parseMove(game, "Ne7", moves, count));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path path = dir.resolve("not.book");
+        Files.writeString(path, "definitely not a book");
+        assertThrows(IOException.class, () -> OpeningBook.open(path));
+        assertNull(OpeningBook.openIfExists(dir.resolve("missing.book")));
+    }
+
+    private OpeningBook build(String pgn) throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        builder.addPgn(pgn);
+        assertEquals(3, builder.games());
+        Path path = dir.resolve("test.book");
+        builder.write(path);
+        return OpeningBook.open(path);
+    }
+
+    private static void play(ChessGame game, String... moves) {
+        int[] legal = new int[PackedMove.MAX_MOVES];
+        for (String move : List.of(moves)) {
+            int count = game.validMoves(game.getTeamTurn(), legal);
+            game.forceMove(OpeningBookBuilder.parseMove(game, move, legal, count));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelSearchTest {
+
+    @Test
+    void helpersAgreeOnMate() {
+        try (ParallelSearch search = new ParallelSearch(4)) {
+            ChessGame game = Fen.load("k7/8/1K6/8/8/8/8/1R6 w - - 0 1");
+            SearchResult result = search.search(game, SearchLimits.depth(6));
+            assertEquals(Search.MATE - 3, result.score());
+            assertEquals(4, search.threadResults().size());
+        }
+    }
+
+    @Test
+    void stopsAtTimeLimit() {
+        try (ParallelSearch search = new ParallelSearch(3)) {
+            long start = System.nanoTime();
+            SearchResult result = search.search(new ChessGame(), SearchLimits.time(200));
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertNotNull(result.bestMove());
+            assertTrue(millis < 1000, "took " + millis + " ms");
+            long nodes = search.threadResults().stream().mapToLong(SearchResult::nodes).sum();
+            assertEquals(nodes, result.nodes());
+        }
+    }
+
+    @Test
+    void stopSetBeforeSearchStarts() {
+        try (ParallelSearch search = new ParallelSearch(2)) {
+            long start = System.nanoTime();
+            search.search(new ChessGame(), SearchLimits.depth(30), new AtomicBoolean(true));
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertTrue(millis < 1000, "took " + millis + " ms");
+        }
+    }
+
+    @Test
+    void batchKeepsOrder() {
+        List<ChessGame> games = List.of(
+                Fen.load("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"),
+                Fen.load("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1"),
+                Fen.load("k7/8/1K6/8/8/8/8/1R6 w - - 0 1"));
+        List<SearchResult> results = new BatchAnalyzer(new ForkJoinPool(2), SearchLimits.depth(6), 1).analyze(games);
+        assertEquals(List.of(Search.MATE - 1, -Search.MATE, Search.MATE - 3),
+                results.stream().map(SearchResult::score).toList());
+    }
+}
@@ -0,0 +1,53 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Fen;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTest {
+
+    @Test
+    void findsMateInOne() {
+        ChessGame game = Fen.load("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = Search.bestMove(game, SearchLimits.depth(4));
+        assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null), result.bestMove());
+        assertEquals(Search.MATE - 1, result.score());
+    }
+
+    @Test
+    void findsMateInTwo() {
+        // king and rook against a cornered king
+        ChessGame game = Fen.load("k7/8/1K6/8/8/8/8/1R6 w - - 0 1");
+        SearchResult result = Search.bestMove(game, SearchLimits.depth(6));
+        assertTrue(result.isMate());
+        assertEquals(Search.MATE - 3, result.score());
+    }
+
+    @Test
+    void winsHangingQueen() {
+        ChessGame game = Fen.load("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        SearchResult result = Search.bestMove(game, SearchLimits.depth(3));
+        assertEquals(new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null), result.bestMove());
+    }
+
+    @Test
+    void reportsNoMoveWhenMated() {
+        ChessGame game = Fen.load("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1");
+        SearchResult result = Search.bestMove(game, SearchLimits.depth(3));
+        assertNull(result.bestMove());
+        assertEquals(-Search.MATE, result.score());
+    }
+
+    @Test
+    void stopsWithinNodeBudget() {
+        ChessGame game = new ChessGame();
+        SearchResult result = Search.bestMove(game, new SearchLimits(Search.MAX_PLY, 0, 20000));
+        assertNotNull(result.bestMove());
+        assertTrue(result.nodes() <= 20000);
+        assertEquals(new ChessGame(), game);
+    }
+}
@@ -0,0 +1,105 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.PackedMove;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TablebaseTest {
+
+    @TempDir
+    static Path dir;
+
+    private static Tablebases tablebases;
+
+    @BeforeAll
+    static void generate() throws IOException {
+        Tablebases.generate(dir);
+        tablebases = Tablebases.open(dir);
+    }
+
+    @Test
+    void queenMates() {
+        assertEquals(Search.MATE - 1, probe("7k/5Q2/6K1/8/8/8/8/8 w"));
+        assertEquals(-Search.MATE, probe("7k/6Q1/6K1/8/8/8/8/8 b"));
+        // the same positions with colors swapped
+        assertEquals(Search.MATE - 1, probe("8/8/8/8/8/6k1/5q2/7K b"));
+        assertEquals(-Search.MATE, probe("8/8/8/8/8/6k1/6q1/7K w"));
+    }
+
+    @Test
+    void longestMates() {
+        // the longest mates are known: 10 moves for KQK, 16 for KRK and 28 for KPK,
+        // counted here in plies with the losing side to move
+        assertEquals(20, longest(dir.resolve("KQK.tb")));
+        assertEquals(32, longest(dir.resolve("KRK.tb")));
+        assertEquals(56, longest(dir.resolve("KPK.tb")));
+    }
+
+    @Test
+    void draws() {
+        // stalemate, bare kings, a lone king taking the rook, and a rook pawn with the king in front
+        assertEquals(0, probe("7k/5Q2/5K2/8/8/8/8/8 b"));
+        assertEquals(0, probe("7k/8/8/8/8/8/8/K7 w"));
+        assertEquals(0, probe("8/8/8/8/8/7k/8/5rK1 w"));
+        assertEquals(0, probe("7k/8/8/8/8/8/7P/7K w"));
+        assertEquals(0, probe("7k/8/8/8/8/8/7P/7K b"));
+    }
+
+    @Test
+    void pawnEndings() {
+        // the king on the sixth in front of its pawn wins whoever is to move
+        assertTrue(probe("4k3/8/4K3/4P3/8/8/8/8 w") > 0);
+        assertTrue(probe("4k3/8/4K3/4P3/8/8/8/8 b") < 0);
+        assertTrue(probe("8/8/8/4p3/4k3/8/8/4K3 b") > 0);
+        assertEquals(Tablebases.UNKNOWN, probe("4k3/8/4K3/4P3/8/8/8/7N w"));
+    }
+
+    @Test
+    void searchKeepsTheShortestMate() {
+        ChessGame game = Fen.load("8/8/8/3k4/8/8/8/R3K3 w");
+        int plies = Search.MATE - tablebases.probe(game);
+        assertTrue(plies > 1);
+
+        Search search = new Search(game);
+        search.setTablebases(tablebases);
+        SearchResult result = search.search(SearchLimits.depth(2));
+        assertTrue(result.isMate());
+        assertEquals(Search.MATE - plies, result.score());
+        game.forceMove(PackedMove.of(result.bestMove()));
+        assertEquals(-(Search.MATE - plies + 1), tablebases.probe(game));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("other.tb");
+        Files.writeString(file, "not a tablebase at all");
+        assertThrows(IOException.class, () -> Tablebase.open(file));
+    }
+
+    private static int probe(String fen) {
+        return tablebases.probe(Fen.load(fen));
+    }
+
+    private static int longest(Path path) {
+        try {
+            Tablebase table = Tablebase.open(path);
+            int longest = -1;
+            for (int index = 0; index < TablebaseGenerator.POSITIONS; index++) {
+                longest = Math.max(longest, table.pliesToMate(index));
+            }
+            return longest;
+        }
+        catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
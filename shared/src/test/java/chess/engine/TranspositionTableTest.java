@@ -0,0 +1,72 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.PackedMove;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTest {
+
+    @Test
+    void storeAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = PackedMove.of(12, 28, null, PackedMove.DOUBLE_PUSH);
+        table.store(0x1234_5678_9ABC_DEF0L, move, -250, 7, TranspositionTable.LOWER);
+
+        long entry = table.probe(0x1234_5678_9ABC_DEF0L);
+        assertTrue(PackedMove.sameMove(move, TranspositionTable.move(entry)));
+        assertEquals(-250, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+    }
+
+    @Test
+    void otherKeyInSameSlotMisses() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 42;
+        table.store(key, 0, 10, 3, TranspositionTable.EXACT);
+        assertEquals(0L, table.probe(key + table.capacity()));
+    }
+
+    @Test
+    void depthPreferredKeepsDeeperEntry() {
+        TranspositionTable table = new TranspositionTable(1, TranspositionTable.Replacement.DEPTH_PREFERRED);
+        long key = 42;
+        long rival = key + table.capacity();
+        table.store(key, 0, 10, 5, TranspositionTable.EXACT);
+        table.store(rival, 0, 20, 2, TranspositionTable.EXACT);
+        assertNotEquals(0L, table.probe(key));
+        assertEquals(0L, table.probe(rival));
+
+        TranspositionTable always = new TranspositionTable(1, TranspositionTable.Replacement.ALWAYS);
+        always.store(key, 0, 10, 5, TranspositionTable.EXACT);
+        always.store(rival, 0, 20, 2, TranspositionTable.EXACT);
+        assertEquals(0L, always.probe(key));
+        assertNotEquals(0L, always.probe(rival));
+    }
+
+    @Test
+    void agedReplacesEntriesFromEarlierSearches() {
+        TranspositionTable table = new TranspositionTable(1, TranspositionTable.Replacement.AGED);
+        long key = 42;
+        long rival = key + table.capacity();
+        table.store(key, 0, 10, 5, TranspositionTable.EXACT);
+        table.store(rival, 0, 20, 2, TranspositionTable.EXACT);
+        assertEquals(0L, table.probe(rival));
+
+        table.newSearch();
+        table.store(rival, 0, 20, 2, TranspositionTable.EXACT);
+        assertNotEquals(0L, table.probe(rival));
+    }
+
+    @Test
+    void sharedTableKeepsSearchCorrect() {
+        TranspositionTable table = new TranspositionTable(1);
+        ChessGame game = Fen.load("k7/8/1K6/8/8/8/8/1R6 w - - 0 1");
+        assertEquals(Search.MATE - 3, new Search(game, table).search(SearchLimits.depth(6)).score());
+        // a second search starts from a warm table
+        assertEquals(Search.MATE - 3, new Search(game, table).search(SearchLimits.depth(6)).score());
+    }
+}